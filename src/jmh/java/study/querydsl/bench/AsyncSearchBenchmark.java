@@ -0,0 +1,71 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동기(/v3/members) vs 비동기(/async/v3/members) 검색 부하 테스트
+ * 톰캣 요청 쓰레드(tomcatThreads)보다 많은 클라이언트(@Threads)가 동시에 요청한다.
+ * 비동기는 DB 를 기다리는 검색 수를 늘리지 않으므로 (member.async-search.threads, 커넥션 풀 크기로 제한)
+ * 검색 처리량은 비슷하고, 차이는 요청 쓰레드가 비어 있는지와 대기열이 차면 503 으로 바로 거절하는지에 있다.
+ * 응답 코드별 건수는 JMH 결과가 아니라 actuator 의 http.server.requests 로 확인한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=AsyncSearch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class AsyncSearchBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"16"})
+    int tomcatThreads;
+
+    @Param({"/v3/members", "/async/v3/members"})
+    String path;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    HttpRequest request;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.startWeb("server.tomcat.threads.max=" + tomcatThreads);
+        BenchmarkContext.seed(context, rows);
+        client = HttpClient.newHttpClient();
+        // offset 2000 의 뒤쪽 페이지 (total 은 count 캐시에서 재사용된다)
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + BenchmarkContext.port(context)
+                        + path + "?teamName=teamA&page=100&size=20"))
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
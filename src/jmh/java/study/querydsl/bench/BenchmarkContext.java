@@ -0,0 +1,78 @@
+package study.querydsl.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.InflearnQuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 로컬 H2 서버 대신 임베디드 메모리 H2 를 사용하므로 오프라인에서도 같은 조건으로 재현 가능하다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * properties 는 key=value 형식. application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * 임의의 포트로 톰캣까지 띄운다. 포트는 port(context)
+     */
+    public static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> args = new ArrayList<>(List.of("server.port=0"));
+        args.addAll(Arrays.asList(properties));
+        return start(WebApplicationType.SERVLET, args.toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                // local 프로필의 InitMember 가 돌지 않도록 프로필 교체
+                "spring.profiles.active=bench",
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "decorator.datasource.enabled=false",
+                "logging.level.root=warn"));
+        args.addAll(Arrays.asList(properties));
+
+        return new SpringApplicationBuilder(InflearnQuerydslApplication.class)
+                .web(type)
+                .run(args.stream()
+                        .map(arg -> "--" + arg)
+                        .toArray(String[]::new));
+    }
+
+    /**
+     * teamA, teamB 에 번갈아가며 count 명의 회원을 넣는다. (나이는 0 ~ 99)
+     */
+    public static void seed(ConfigurableApplicationContext context, int count) {
+        MemberBulkWriter writer = context.getBean(MemberBulkWriter.class);
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        writer.write(Stream.of(teamA, teamB));
+        writer.write(IntStream.range(0, count)
+                .mapToObj(i -> {
+                    Member member = Member.of("member" + i, i % 100);
+                    member.setTeam(i % 2 == 0 ? teamA : teamB);
+                    return member;
+                }));
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.entity.Member;
+import study.querydsl.service.BulkWriteResult;
+import study.querydsl.service.MemberBulkWriter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 동시에 여러 쓰레드가 회원을 저장할 때 id 블록 크기에 따른 insert 처리량
+ * blockSize=1 은 insert 마다 시퀀스를 호출하는 기존 방식과 같다.
+ * 결과는 ops/s * ROWS = rows/s
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class IdGenerationBenchmark {
+    static final int ROWS = 100;
+
+    @Param({"1", "50", "500"})
+    int blockSize;
+
+    ConfigurableApplicationContext context;
+    MemberBulkWriter writer;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("spring.jpa.properties.querydsl.id.block_size=" + blockSize);
+        writer = context.getBean(MemberBulkWriter.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkWriteResult insert() {
+        return writer.write(IntStream.range(0, ROWS)
+                .mapToObj(i -> Member.of("member" + i, i % 100)));
+    }
+}
@@ -0,0 +1,137 @@
+package study.querydsl.bench;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 쿼리 "생성" 비용 측정 (DB 접근 없음)
+ * - where 다중 파라미터(MemberRepositoryImpl) vs BooleanBuilder(MemberJpaRepository.searchByBuilder)
+ * - 만들어진 쿼리를 JPQL 문자열로 직렬화하는 비용
+ *
+ * 조건 메서드는 리포지토리의 private 메서드와 동일하게 작성
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PredicateBenchmark {
+
+    /**
+     * none: 조건 없음, all: 모든 조건 사용
+     */
+    @Param({"none", "all"})
+    String condition;
+
+    MemberSearchCondition cond;
+
+    @Setup
+    public void setup() {
+        cond = new MemberSearchCondition();
+        if ("all".equals(condition)) {
+            cond.setUsername("member1");
+            cond.setTeamName("teamA");
+            cond.setAgeGoe(10);
+            cond.setAgeLoe(40);
+        }
+    }
+
+    @Benchmark
+    public Predicate[] whereParams() {
+        return new Predicate[]{
+                usernameEq(cond.getUsername()),
+                teamNameEq(cond.getTeamName()),
+                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+        };
+    }
+
+    @Benchmark
+    public Predicate booleanBuilder() {
+        return builder(cond);
+    }
+
+    @Benchmark
+    public String serializeWhereParams() {
+        return searchQuery()
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()))
+                .toString();
+    }
+
+    @Benchmark
+    public String serializeBooleanBuilder() {
+        return searchQuery()
+                .where(builder(cond))
+                .toString();
+    }
+
+    private JPAQuery<MemberTeamDto> searchQuery() {
+        return new JPAQuery<Void>()
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+
+    private BooleanBuilder builder(MemberSearchCondition cond) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (hasText(cond.getUsername())) {
+            builder.and(member.username.eq(cond.getUsername()));
+        }
+        if (hasText(cond.getTeamName())) {
+            builder.and(team.name.eq(cond.getTeamName()));
+        }
+        if (cond.getAgeGoe() != null) {
+            builder.and(member.age.goe(cond.getAgeGoe()));
+        }
+        if (cond.getAgeLoe() != null) {
+            builder.and(member.age.loe(cond.getAgeLoe()));
+        }
+        return builder;
+    }
+
+    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
+        return ageLoe != null && ageGoe != null ?
+                ageLoe(ageLoe).and(ageGoe(ageGoe)) :
+                null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+}
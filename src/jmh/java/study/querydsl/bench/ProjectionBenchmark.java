@@ -0,0 +1,105 @@
+package study.querydsl.bench;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.repository.support.DtoProjection;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * QueryDslBasicTest 에서 다룬 DTO 프로젝션 방식별 조회 비용 (임베디드 H2)
+ * 같은 SQL 이 나가므로 차이는 결과 row 를 DTO 로 만드는 비용이다.
+ * methodHandle, lambda 는 리플렉션 없이 만드는 DtoProjection
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+    static final DtoProjection<MemberDto> METHOD_HANDLE = DtoProjection.constructor(MemberDto.class,
+            member.username, member.age);
+    static final DtoProjection<MemberDto> LAMBDA = DtoProjection.of(MemberDto.class,
+            args -> new MemberDto((String) args[0], (Integer) args[1]),
+            member.username, member.age);
+
+    @Param({"1000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory query;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, rows);
+        query = new JPAQueryFactory(context.getBean(EntityManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return query.select(Projections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return query.select(Projections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return query.select(Projections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return query.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> methodHandle() {
+        return query.select(METHOD_HANDLE)
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> lambda() {
+        return query.select(LAMBDA)
+                .from(member)
+                .fetch();
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.bench;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 매 요청 querydsl -> JPQL 직렬화 vs shape 별로 미리 만든 JPQL 재사용
+ * 결과가 1건인 조건으로 DB 비용을 줄여서 요청당 CPU 비용 차이가 드러나도록 했다.
+ * 여러 쓰레드로 높은 QPS 상황을 흉내낸다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class SearchTemplateBenchmark {
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory query;
+    MemberSearchQueryTemplates templates;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, 1000);
+        em = context.getBean(EntityManager.class);
+        query = new JPAQueryFactory(em);
+        templates = new MemberSearchQueryTemplates(em);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dynamic() {
+        return query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq("member7"),
+                        teamNameEq("teamB"),
+                        member.age.goe(0),
+                        member.age.loe(50))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> template() {
+        return templates.fetch("member7", "teamB", 0, 50);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+}
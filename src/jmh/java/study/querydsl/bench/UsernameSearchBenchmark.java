@@ -0,0 +1,79 @@
+package study.querydsl.bench;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.UsernameIndex;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 부분 일치 검색 : like '%x%' vs UsernameIndex
+ * 회원 이름은 member0 ~ member{rows-1} 이므로 keyword 로 일치 건수를 조절한다.
+ * (12345 -> 수십 건, 999999 -> 0 ~ 1 건)
+ * 5M 건은 rows 를 5000000 으로 바꿔서 실행 (적재에 수 분, 힙 4G 이상 필요)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsernameSearchBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"12345", "999999"})
+    String keyword;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory query;
+    MemberRepository memberRepository;
+    UsernameIndex usernameIndex;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, rows);
+        query = new JPAQueryFactory(context.getBean(EntityManager.class));
+        memberRepository = context.getBean(MemberRepository.class);
+        usernameIndex = context.getBean(UsernameIndex.class);
+        usernameIndex.search(keyword, 1); // 인덱스 로딩은 측정에서 제외
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<String> like() {
+        return query.select(member.username)
+                .from(member)
+                .where(member.username.containsIgnoreCase(keyword))
+                .limit(20)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Long> index() {
+        return usernameIndex.search(keyword, 20);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> indexWithFetch() {
+        return memberRepository.searchUsername(keyword, 20);
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 빈으로 등록된 EventListenerRegistrar 들에게 하이버네이트 이벤트 리스너를 등록할 기회를 준다.
+ * (SessionFactory 가 만들어질 때 한 번 호출)
+ *
+ * 리스너 빈은 EntityManagerFactory 생성 도중에 만들어지므로 JPA 를 사용하는 빈을 생성자에서 바로 받을 수 없다.
+ * 그런 빈은 ObjectProvider 로 받아두고 처음 쓸 때 가져온다.
+ */
+@Configuration
+public class HibernateEventListenerConfig {
+
+    public interface EventListenerRegistrar {
+        void register(EventListenerRegistry registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer eventListenerCustomizer(ObjectProvider<EventListenerRegistrar> registrars) {
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registrars.orderedStream().forEach(registrar -> registrar.register(registry));
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                     SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(integrator));
+    }
+}
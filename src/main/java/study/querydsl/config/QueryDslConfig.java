@@ -1,9 +1,10 @@
 package study.querydsl.config;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import study.querydsl.monitor.InstrumentedJPAQueryFactory;
+import study.querydsl.monitor.QueryMetrics;
 
 import javax.persistence.EntityManager;
 
@@ -11,7 +12,7 @@ import javax.persistence.EntityManager;
 public class QueryDslConfig {
 
     @Bean
-    public JPAQueryFactory jpaQueryFactory(EntityManager em) {
-        return new JPAQueryFactory(em);
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        return new InstrumentedJPAQueryFactory(em, queryMetrics);
     }
 }
@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * readOnly 트랜잭션이면 replica 중 하나로, 아니면 primary 로 커넥션을 가져온다.
+ *
+ * 트랜잭션의 readOnly 여부는 트랜잭션 시작(doBegin) 이후에 설정되므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 실제 쿼리 시점에 커넥션을 고르도록 해야한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final RoutingDataSourceProperties.Strategy strategy;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    RoutingDataSourceProperties.Strategy strategy) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.strategy = strategy;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return strategy == RoutingDataSourceProperties.Strategy.LEAST_LOADED ? leastLoaded() : roundRobin();
+    }
+
+    private int roundRobin() {
+        return Math.floorMod(sequence.getAndIncrement(), replicas.size());
+    }
+
+    private int leastLoaded() {
+        int selected = 0;
+        int minActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            // 풀은 첫 커넥션 요청때 만들어지므로 그 전에는 null
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int active = pool != null ? pool.getActiveConnections() : 0;
+            if (active < minActive) {
+                minActive = active;
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * primary / replica 라우팅 DataSource
+ *
+ * datasource.routing.enabled=true 일 때만 동작하고 JPA, JPAQueryFactory 는 그대로 이 DataSource 를 쓴다.
+ * - @Transactional(readOnly = true) 인 조회 -> replica (round-robin 또는 least-loaded)
+ * - 그 외 (save, 벌크 연산 등 쓰기 트랜잭션, 트랜잭션 밖) -> primary
+ *
+ * 커넥션은 트랜잭션 시작 시점에 고르므로 OSIV 처럼 영속성 컨텍스트가 여러 트랜잭션에 걸쳐 있으면
+ * 처음 잡은 커넥션을 계속 쓴다. (spring.jpa.open-in-view=false 로 둔다)
+ * primary 풀 설정은 기본 DataSource 와 같이 spring.datasource.hikari.* 를 따른다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryProperties) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @Primary
+    public RoutingDataSourceProxy dataSource(HikariDataSource primary, DataSourceProperties primaryProperties,
+                                             RoutingDataSourceProperties routingProperties) {
+        List<RoutingDataSourceProperties.Replica> replicaProperties = routingProperties.getReplicas();
+        List<HikariDataSource> replicas = replicaProperties.stream()
+                .map(replica -> {
+                    HikariDataSource dataSource = new HikariDataSource();
+                    dataSource.setPoolName("replica-" + replicaProperties.indexOf(replica));
+                    dataSource.setDriverClassName(primaryProperties.determineDriverClassName());
+                    dataSource.setJdbcUrl(replica.getUrl());
+                    dataSource.setUsername(replica.getUsername());
+                    dataSource.setPassword(replica.getPassword());
+                    dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+                    dataSource.setReadOnly(true);
+                    return dataSource;
+                })
+                .collect(Collectors.toList());
+
+        return new RoutingDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replicas, routingProperties.getStrategy()));
+    }
+
+    /**
+     * 컨텍스트 종료시 커넥션 풀을 닫을 수 있도록 close 를 위임
+     */
+    public static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        public RoutingDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Override
+        public void close() {
+            routingDataSource.close();
+        }
+    }
+}
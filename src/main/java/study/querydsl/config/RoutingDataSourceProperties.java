@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("datasource.routing")
+public class RoutingDataSourceProperties {
+    /**
+     * true 면 readOnly 트랜잭션은 replicas 로, 나머지는 spring.datasource(primary) 로 보낸다.
+     */
+    private boolean enabled;
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
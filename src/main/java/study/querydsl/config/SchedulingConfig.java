@@ -0,0 +1,14 @@
+package study.querydsl.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * TeamSummaryService.reconcile, MemberStatisticsService.reconcile, UsernameIndex.reconcile 같은 주기 작업 (scheduling.enabled=false 로 끌 수 있음)
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,85 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 하이버네이트 세션(트랜잭션)마다 이벤트 리스너가 필요한 값만 모아두는 버퍼
+ *
+ * POST_COMMIT 리스너를 쓰면 하이버네이트가 엔티티 액션마다 완료 후 처리를 등록해서 커밋까지 엔티티와 상태를 잡고 있으므로
+ * flush, clear 를 반복하는 대량 적재에서도 메모리가 줄지 않는다. (MemberBulkWriter)
+ * 대신 POST_INSERT/UPDATE/DELETE 에서 값만 여기에 모으고, 세션에서 처음 버퍼를 만들 때
+ * 트랜잭션 완료 전/후 처리를 한 번만 등록한다. 트랜잭션이 끝나면 버퍼를 지운다.
+ * 롤백되면 beforeCompletion 은 실행되지 않고 afterCompletion 은 committed = false 로 실행된다.
+ */
+@Slf4j
+public class SessionBuffers<T> {
+
+    public interface BeforeCompletion<T> {
+        void apply(SessionImplementor session, T buffer);
+    }
+
+    public interface AfterCompletion<T> {
+        void apply(T buffer, boolean committed);
+    }
+
+    private final ConcurrentMap<SharedSessionContractImplementor, T> buffers = new ConcurrentHashMap<>();
+    private final Supplier<T> factory;
+    private final BeforeCompletion<T> beforeCompletion;
+    private final AfterCompletion<T> afterCompletion;
+
+    private SessionBuffers(Supplier<T> factory, BeforeCompletion<T> beforeCompletion,
+                           AfterCompletion<T> afterCompletion) {
+        this.factory = factory;
+        this.beforeCompletion = beforeCompletion;
+        this.afterCompletion = afterCompletion;
+    }
+
+    /**
+     * 커밋 직전에 같은 트랜잭션으로 반영할 때
+     */
+    public static <T> SessionBuffers<T> beforeCompletion(Supplier<T> factory, BeforeCompletion<T> beforeCompletion) {
+        return new SessionBuffers<>(factory, beforeCompletion, null);
+    }
+
+    /**
+     * 트랜잭션이 끝난 뒤 반영할 때
+     */
+    public static <T> SessionBuffers<T> afterCompletion(Supplier<T> factory, AfterCompletion<T> afterCompletion) {
+        return new SessionBuffers<>(factory, null, afterCompletion);
+    }
+
+    public T get(EventSource session) {
+        T buffer = buffers.get(session);
+        if (buffer != null) {
+            return buffer;
+        }
+        T created = factory.get();
+        buffers.put(session, created);
+        if (beforeCompletion != null) {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing ->
+                    beforeCompletion.apply(completing, created));
+        }
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+            buffers.remove(completed);
+            if (afterCompletion == null) {
+                return;
+            }
+            // 하이버네이트는 여기서 난 예외를 커밋 실패처럼 던지므로 로그만 남긴다
+            try {
+                afterCompletion.apply(created, success);
+            } catch (RuntimeException e) {
+                log.error("session buffer after completion failed", e);
+            }
+        });
+        return created;
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 하이버네이트에는 StatementInspector 를 하나만 등록할 수 있으므로
+ * 빈으로 등록된 StatementInspector 들을 모아서 순서대로 호출한다.
+ */
+@Configuration
+public class StatementInspectorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(ObjectProvider<StatementInspector> inspectors) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new CompositeStatementInspector(inspectors));
+    }
+
+    static class CompositeStatementInspector implements StatementInspector {
+        private final ObjectProvider<StatementInspector> provider;
+        private volatile List<StatementInspector> inspectors;
+
+        CompositeStatementInspector(ObjectProvider<StatementInspector> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            String result = sql;
+            for (StatementInspector inspector : getInspectors()) {
+                result = inspector.inspect(result);
+            }
+            return result;
+        }
+
+        // EntityManagerFactory 생성 시점에는 inspector 빈들이 아직 없을 수 있으므로 처음 쓸 때 가져온다
+        private List<StatementInspector> getInspectors() {
+            List<StatementInspector> result = inspectors;
+            if (result == null) {
+                result = provider.orderedStream().collect(Collectors.toList());
+                inspectors = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberSearchExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * MemberController 의 검색을 MemberSearchExecutor 에서 실행하는 비동기 버전
+ * 요청 쓰레드는 DB 응답을 기다리지 않고 바로 반납된다. (동시에 실행되는 검색 수가 늘지는 않는다)
+ * 비동기 요청이 타임아웃(spring.mvc.async.request-timeout)되거나 연결이 끊기면 검색을 취소하고 타임아웃은 503 이다.
+ * 결과가 큰 조회는 전체를 메모리에 올리지 않는 /v1/members/export 를 사용하자.
+ */
+@RestController
+@RequestMapping("/async")
+@RequiredArgsConstructor
+public class AsyncMemberController {
+    private final MemberRepository memberRepository;
+    private final MemberSearchExecutor searchExecutor;
+
+    @GetMapping("/v1/members")
+    public DeferredResult<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition cond) {
+        return search(() -> memberRepository.search(cond));
+    }
+
+    @GetMapping("/v3/members")
+    public DeferredResult<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition cond, Pageable pageable) {
+        return search(() -> memberRepository.searchPageComplex(cond, pageable));
+    }
+
+    @GetMapping("/members/slice")
+    public DeferredResult<Slice<MemberTeamDto>> searchMemberSlice(MemberSearchCondition cond, Pageable pageable) {
+        return search(() -> memberRepository.searchSlice(cond, pageable));
+    }
+
+    private <T> DeferredResult<T> search(Supplier<T> search) {
+        CompletableFuture<T> future = searchExecutor.submit(search);
+        DeferredResult<T> result = new DeferredResult<>();
+        future.whenComplete((value, e) -> {
+            if (e != null) {
+                result.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                result.setResult(value);
+            }
+        });
+        result.onTimeout(() -> future.cancel(true));
+        result.onError(e -> future.cancel(true));
+        return result;
+    }
+
+    /**
+     * 검색 쓰레드와 대기열이 모두 찼을 때
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void searchRejected() {
+    }
+
+    /**
+     * 지원하지 않는 정렬 등 잘못된 요청 (MemberController 와 같음)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void badRequest() {
+    }
+}
@@ -1,16 +1,18 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.service.BulkWriteResult;
+import study.querydsl.service.MemberBulkWriter;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Profile("local")
 @Component
@@ -23,22 +25,25 @@ public class InitMember {
         initMemberService.init();
     }
 
+    @Slf4j
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
+        private final MemberBulkWriter memberBulkWriter;
 
-        @Transactional
+        // MemberBulkWriter 가 호출마다 별도 트랜잭션으로 커밋한다
         public void init() {
             Team teamA = Team.of("teamA");
             Team teamB = Team.of("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
+            memberBulkWriter.write(Stream.of(teamA, teamB));
 
-            for(int i=0;i<100;i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(Member.of("member"+i, i, selectedTeam));
-            }
+            BulkWriteResult result = memberBulkWriter.write(IntStream.range(0, 100)
+                    .mapToObj(i -> {
+                        Member member = Member.of("member" + i, i);
+                        member.setTeam(i % 2 == 0 ? teamA : teamB);
+                        return member;
+                    }));
+            log.info("InitMember {}", result);
         }
     }
 }
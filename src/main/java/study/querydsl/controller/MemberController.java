@@ -3,33 +3,125 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberStatistics;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberStatisticsService;
 
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    // Pageable 의 기본 최대 크기(spring.data.web.pageable.max-page-size)와 같다
+    private static final int MAX_CURSOR_SIZE = 2000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberStatisticsService memberStatisticsService;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition cond) {
         return memberJpaRepository.search(cond);
     }
 
+    /**
+     * v1 과 같은 조건이지만 결과를 모아두지 않고 스트리밍으로 내려준다. (JSON lines 또는 CSV)
+     */
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(MemberSearchCondition cond,
+                                                                @RequestParam(defaultValue = "JSONL") MemberExportService.Format format) {
+        boolean csv = format == MemberExportService.Format.CSV;
+        StreamingResponseBody body = out -> memberExportService.export(cond, format, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + (csv ? "csv" : "jsonl"))
+                .body(body);
+    }
+
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition cond, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition cond, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean estimated) {
+        if (estimated) {
+            return memberRepository.searchPageEstimated(cond, pageable);
+        }
         return memberRepository.searchPageSimple(cond, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition cond, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition cond, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean estimated) {
+        if (estimated) {
+            return memberRepository.searchPageEstimated(cond, pageable);
+        }
         return memberRepository.searchPageComplex(cond, pageable);
     }
+
+    /**
+     * 커서 기반 페이징
+     * 첫 요청은 cursor 없이 sort 만 지정하고 이후에는 응답의 nextCursor 를 그대로 넘긴다.
+     * 잘못된 cursor, 0 이하의 size 는 400. size 는 최대 MAX_CURSOR_SIZE 로 줄인다.
+     */
+    @GetMapping("/v4/members")
+    public MemberCursorSlice searchMemberV4(MemberSearchCondition cond,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "ID") MemberCursor.SortKey sort,
+                                            @RequestParam(defaultValue = "20") int size) {
+        if (size <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than 0");
+        }
+        MemberCursor memberCursor;
+        try {
+            memberCursor = cursor != null ? MemberCursor.decode(cursor) : MemberCursor.first(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return memberRepository.searchSlice(cond, memberCursor, Math.min(size, MAX_CURSOR_SIZE));
+    }
+
+    /**
+     * total 없이 다음 페이지 여부만 내려주는 페이징 (무한 스크롤, count 쿼리 없음)
+     * 지원하지 않는 sort 는 400
+     */
+    @GetMapping("/members/slice")
+    public Slice<MemberTeamDto> searchMemberSlice(MemberSearchCondition cond, Pageable pageable) {
+        try {
+            return memberRepository.searchSlice(cond, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * username 부분 일치 검색 (정확히 일치 > 앞부분 일치 > 중간 일치 순)
+     */
+    @GetMapping("/members/username")
+    public List<MemberTeamDto> searchUsername(@RequestParam String keyword,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        return memberRepository.searchUsername(keyword, limit);
+    }
+
+    /**
+     * 팀별, 나이 구간별 회원 수와 나이 통계 (메모리에서 유지, DB 집계 없음)
+     */
+    @GetMapping("/members/stats")
+    public MemberStatistics memberStatistics() {
+        return memberStatisticsService.getStatistics();
+    }
 }
@@ -0,0 +1,38 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+/**
+ * 회원 나이 통계 (count, sum, min, max, avg)
+ */
+@Getter
+public class AgeStats {
+    public static final AgeStats EMPTY = new AgeStats(0, 0, 0, 0);
+
+    private final long count;
+    private final long sum;
+    private final int min;
+    private final int max;
+
+    public AgeStats(long count, long sum, int min, int max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public double getAvg() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public AgeStats merge(AgeStats other) {
+        if (count == 0) {
+            return other;
+        }
+        if (other.count == 0) {
+            return this;
+        }
+        return new AgeStats(count + other.count, sum + other.sum,
+                Math.min(min, other.min), Math.max(max, other.max));
+    }
+}
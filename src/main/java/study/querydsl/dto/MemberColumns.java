@@ -0,0 +1,144 @@
+package study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 id, 나이, 팀 이름을 컬럼별 primitive 배열로 담은 조회 결과
+ *
+ * row 마다 Tuple, Long, Integer 객체를 유지하지 않으므로 수백만 건도 작은 메모리로 들고 집계할 수 있다.
+ * 팀 이름은 사전(teamNames) 인덱스로 저장하고 팀이 없으면 NO_TEAM(-1)
+ */
+public class MemberColumns {
+    public static final int NO_TEAM = -1;
+
+    private final int size;
+    private final long[] ids;
+    private final int[] ages;
+    private final int[] teamCodes;
+    private final List<String> teamNames;
+
+    private MemberColumns(int size, long[] ids, int[] ages, int[] teamCodes, List<String> teamNames) {
+        this.size = size;
+        this.ids = ids;
+        this.ages = ages;
+        this.teamCodes = teamCodes;
+        this.teamNames = teamNames;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public int getAge(int row) {
+        return ages[row];
+    }
+
+    public int getTeamCode(int row) {
+        return teamCodes[row];
+    }
+
+    public String getTeamName(int row) {
+        int code = teamCodes[row];
+        return code == NO_TEAM ? null : teamNames.get(code);
+    }
+
+    /**
+     * 팀 코드 -> 팀 이름
+     */
+    public List<String> getTeamNames() {
+        return teamNames;
+    }
+
+    public double averageAge() {
+        if (size == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += ages[i];
+        }
+        return (double) sum / size;
+    }
+
+    /**
+     * 팀 이름별 회원 수 (팀이 없는 회원은 제외)
+     */
+    public Map<String, Long> countByTeam() {
+        long[] counts = new long[teamNames.size()];
+        for (int i = 0; i < size; i++) {
+            if (teamCodes[i] != NO_TEAM) {
+                counts[teamCodes[i]]++;
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            result.put(teamNames.get(code), counts[code]);
+        }
+        return result;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public static class Builder {
+        private int size;
+        private long[] ids;
+        private int[] ages;
+        private int[] teamCodes;
+        private final List<String> teamNames = new ArrayList<>();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.ids = new long[capacity];
+            this.ages = new int[capacity];
+            this.teamCodes = new int[capacity];
+        }
+
+        public Builder add(long id, int age, String teamName) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamCodes = Arrays.copyOf(teamCodes, capacity);
+            }
+            ids[size] = id;
+            ages[size] = age;
+            teamCodes[size] = teamName == null ? NO_TEAM : encode(teamName);
+            size++;
+            return this;
+        }
+
+        private int encode(String teamName) {
+            Integer code = dictionary.get(teamName);
+            if (code == null) {
+                code = teamNames.size();
+                teamNames.add(teamName);
+                dictionary.put(teamName, code);
+            }
+            return code;
+        }
+
+        /**
+         * 남는 공간은 잘라내고 만든다.
+         */
+        public MemberColumns build() {
+            return new MemberColumns(size,
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(ages, size),
+                    Arrays.copyOf(teamCodes, size),
+                    Collections.unmodifiableList(new ArrayList<>(teamNames)));
+        }
+    }
+}
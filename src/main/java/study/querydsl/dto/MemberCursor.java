@@ -0,0 +1,67 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징용 커서
+ * 마지막으로 내려준 row 의 정렬키 + id 를 들고 있다가 그 다음 row 부터 조회한다.
+ * 클라이언트에는 내부 구조를 드러내지 않도록 encode() 한 불투명 토큰으로 내려준다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+    private static final String DELIMITER = ":";
+
+    private final SortKey sortKey;
+    private final Integer lastAge;
+    private final Long lastId;
+
+    public enum SortKey {
+        ID, AGE
+    }
+
+    public static MemberCursor first(SortKey sortKey) {
+        return new MemberCursor(sortKey, null, null);
+    }
+
+    public static MemberCursor after(SortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, last.getAge(), last.getMemberId());
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String encode() {
+        String raw = sortKey + DELIMITER + lastAge + DELIMITER + lastId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * "정렬키:나이:id" 세 부분이 모두 있어야 한다. ("AGE::10", "AGE:null:10" 처럼 값이 빠진 토큰은 거부)
+     * @throws IllegalArgumentException 잘못된 토큰
+     */
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("parts=" + parts.length);
+            }
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            Integer lastAge = Integer.valueOf(parts[1]);
+            Long lastId = Long.valueOf(parts[2]);
+            return new MemberCursor(sortKey, lastAge, lastId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor=" + token, e);
+        }
+    }
+}
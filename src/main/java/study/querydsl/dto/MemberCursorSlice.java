@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MemberCursorSlice {
+    private List<MemberTeamDto> content;
+    private boolean hasNext;
+    // 다음 조회시 그대로 넘겨주면 되는 토큰. 마지막 페이지면 null
+    private String nextCursor;
+}
@@ -2,10 +2,31 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     private String username;
+    private String usernameContains; // 대소문자 무시 부분 일치 (UsernameIndex)
     private String teamName;
     private Integer ageGoe; // 나이가 크거나 같거나
     private Integer ageLoe;
+
+    /**
+     * 조회 결과가 같은 조건끼리는 같은 값이 되도록 정리한 복사본 (캐시 키 용도)
+     * 리포지토리의 where 파라미터 규칙을 따른다.
+     * - 빈 문자열은 조건 없음
+     * - 나이 조건은 ageGoe, ageLoe 가 모두 있을 때만 적용
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsername(hasText(username) ? username : null);
+        cond.setUsernameContains(hasText(usernameContains) ? usernameContains.trim() : null);
+        cond.setTeamName(hasText(teamName) ? teamName : null);
+        if (ageGoe != null && ageLoe != null) {
+            cond.setAgeGoe(ageGoe);
+            cond.setAgeLoe(ageLoe);
+        }
+        return cond;
+    }
 }
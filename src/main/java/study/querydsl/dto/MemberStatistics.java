@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class MemberStatistics {
+    // 팀 이름 -> 통계 (팀이 없는 회원은 "(no team)")
+    private Map<String, AgeStats> byTeam;
+    // "20-29" 처럼 10살 단위 구간 -> 통계
+    private Map<String, AgeStats> byAgeBucket;
+}
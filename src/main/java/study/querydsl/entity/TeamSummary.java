@@ -0,0 +1,33 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 수, 나이 합계 (member 를 집계하지 않고 바로 읽기 위한 테이블)
+ * TeamSummaryListener 가 회원 변경과 같은 트랜잭션에서 갱신하고 TeamSummaryService 가 주기적으로 다시 맞춘다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamSummary {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+
+    public TeamSummary(Long teamId, long memberCount, long ageSum) {
+        this.teamId = teamId;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+    }
+
+    public double getAverageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.entity.support;
+
+import org.hibernate.persister.entity.EntityPersister;
+import study.querydsl.entity.Team;
+
+/**
+ * 하이버네이트 이벤트가 넘겨주는 Member 상태 배열(state, oldState, deletedState)에서 값을 꺼낸다.
+ * 엔티티 인스턴스 대신 이벤트 시점의 값을 봐야 변경 전후를 구분할 수 있다.
+ */
+public final class MemberState {
+
+    private MemberState() {
+    }
+
+    public static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    // 팀은 프록시일 수 있지만 id 는 초기화 없이 가져올 수 있다
+    public static Long teamId(EntityPersister persister, Object[] state) {
+        Team team = (Team) state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null ? null : team.getId();
+    }
+
+    public static String username(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.monitor;
+
+/**
+ * 쿼리를 만든 애플리케이션 메소드 (예: MemberRepositoryImpl.searchPageComplex)
+ *
+ * monitor, repository.support 패키지와 프록시 클래스는 건너뛰고
+ * 가장 가까운 study.querydsl 프레임을 찾는다. 람다는 감싸고 있는 메소드 이름으로 바꾼다.
+ */
+final class CallSite {
+    static final String UNKNOWN = "unknown";
+
+    private static final String APPLICATION = "study.querydsl.";
+    private static final String[] IGNORED = {
+            "study.querydsl.monitor.",
+            "study.querydsl.repository.support."
+    };
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private CallSite() {
+    }
+
+    static String resolve(Class<?> skip) {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> isApplicationFrame(frame.getClassName(), skip))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse(UNKNOWN));
+    }
+
+    private static boolean isApplicationFrame(String className, Class<?> skip) {
+        if (!className.startsWith(APPLICATION) || className.contains("$$")) {
+            return false;
+        }
+        if (skip != null && className.equals(skip.getName())) {
+            return false;
+        }
+        for (String ignored : IGNORED) {
+            if (className.startsWith(ignored)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String methodName(String methodName) {
+        // lambda$searchPageComplex$0 -> searchPageComplex
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return end > 0 ? methodName.substring("lambda$".length(), end) : methodName;
+        }
+        return methodName;
+    }
+}
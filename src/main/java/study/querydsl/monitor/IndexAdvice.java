@@ -0,0 +1,45 @@
+package study.querydsl.monitor;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 검색 shape 하나에 대한 EXPLAIN 결과와 추천 인덱스 (IndexAdvisor)
+ */
+@Getter
+public class IndexAdvice {
+    private final SearchShape shape;
+    private final String plan;
+    private final List<Index> indexes;
+
+    IndexAdvice(SearchShape shape, String plan, List<Index> indexes) {
+        this.shape = shape;
+        this.plan = plan;
+        this.indexes = indexes;
+    }
+
+    /**
+     * ddl 로 바로 만들거나 entityIndex 를 엔티티의 @Table(indexes = ...) 에 붙인다.
+     */
+    @Getter
+    public static class Index {
+        private final String table;
+        private final List<String> columns;
+        private final String name;
+
+        Index(String table, List<String> columns) {
+            this.table = table;
+            this.columns = List.copyOf(columns);
+            this.name = "idx_" + table + "_" + String.join("_", columns);
+        }
+
+        public String getDdl() {
+            return "create index if not exists " + name + " on " + table + " (" + String.join(", ", columns) + ")";
+        }
+
+        public String getEntityIndex() {
+            return "@Index(name = \"" + name + "\", columnList = \"" + String.join(", ", columns) + "\")";
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package study.querydsl.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 검색 조건 조합(shape)별 호출 수, 실행 시간을 모으고 자주 쓰이는 shape 에 맞는 인덱스를 추천한다.
+ *
+ * QueryMetrics 의 shape 는 JPQL 단위라 같은 조건이라도 메소드마다 다르게 잡히므로
+ * 여기서는 실제로 적용된 where 조건(username =, username like, team.name =, age >=, age <=)으로 묶는다.
+ * 총 실행 시간 상위 shape 에 대해 같은 조건의 SQL 로 EXPLAIN 을 실행하고
+ * 테이블 전체 scan 이 보이면 (H2 의 "tableScan") 아래 규칙으로 인덱스를 추천한다.
+ * - 등치 조건 컬럼을 앞에, 범위 조건(age)을 뒤에 둔다. member(username, age)
+ * - team.name 조건은 team(name), 나이 조건이 같이 오면 조인 컬럼과 묶어서 member(team_id, age)
+ * - username like '%x%' 는 인덱스를 쓸 수 없으므로 추천하지 않는다. (UsernameIndex)
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+    private final JdbcTemplate jdbcTemplate;
+    private final int minExecutions;
+    private final int hotShapes;
+    private final ConcurrentMap<String, SearchShape> shapes = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(JdbcTemplate jdbcTemplate,
+                        @Value("${querydsl.index-advisor.min-executions:10}") int minExecutions,
+                        @Value("${querydsl.index-advisor.hot-shapes:5}") int hotShapes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minExecutions = minExecutions;
+        this.hotShapes = hotShapes;
+    }
+
+    /**
+     * applied 는 메소드가 실제로 where 에 적용한 조건 (빈 문자열, null 은 조건 없음)
+     */
+    public void record(String method, MemberSearchCondition applied, long nanos) {
+        SearchShape shape = SearchShape.of(applied);
+        shapes.computeIfAbsent(shape.getKey(), key -> shape).record(method, applied, nanos);
+    }
+
+    public List<SearchShape> getShapes() {
+        return shapes.values().stream()
+                .sorted(Comparator.comparingDouble(SearchShape::getTotalMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 총 실행 시간 상위 hotShapes 개(최소 minExecutions 번 실행된 것)에 대해 EXPLAIN 하고 인덱스를 추천한다.
+     */
+    public List<IndexAdvice> advise() {
+        List<IndexAdvice> result = new ArrayList<>();
+        for (SearchShape shape : getShapes()) {
+            if (result.size() >= hotShapes) {
+                break;
+            }
+            if (shape.getExecutions() < minExecutions) {
+                continue;
+            }
+            String plan = explain(shape);
+            result.add(new IndexAdvice(shape, plan, recommend(shape, plan)));
+        }
+        return result;
+    }
+
+    /**
+     * 추천된 인덱스를 실제로 만든다. 만든 DDL 목록
+     */
+    public List<String> apply() {
+        Set<String> ddls = new LinkedHashSet<>();
+        for (IndexAdvice advice : advise()) {
+            for (IndexAdvice.Index index : advice.getIndexes()) {
+                ddls.add(index.getDdl());
+            }
+        }
+        for (String ddl : ddls) {
+            log.info("index advisor: {}", ddl);
+            jdbcTemplate.execute(ddl);
+        }
+        return new ArrayList<>(ddls);
+    }
+
+    private String explain(SearchShape shape) {
+        List<String> where = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        MemberSearchCondition sample = shape.getSample();
+        if (shape.isUsername()) {
+            where.add("m.username = ?");
+            args.add(sample.getUsername());
+        }
+        if (shape.isUsernameContains()) {
+            where.add("lower(m.username) like ?");
+            args.add("%" + sample.getUsernameContains().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (shape.isTeamName()) {
+            where.add("t.name = ?");
+            args.add(sample.getTeamName());
+        }
+        if (shape.isAgeGoe()) {
+            where.add("m.age >= ?");
+            args.add(sample.getAgeGoe());
+        }
+        if (shape.isAgeLoe()) {
+            where.add("m.age <= ?");
+            args.add(sample.getAgeLoe());
+        }
+        String sql = "select m.member_id, m.username, m.age, t.team_id, t.name"
+                + " from member m left outer join team t on m.team_id = t.team_id"
+                + (where.isEmpty() ? "" : " where " + String.join(" and ", where));
+        try {
+            return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, args.toArray()));
+        } catch (DataAccessException e) {
+            log.warn("index advisor: explain failed for [{}]", shape.getKey(), e);
+            return null;
+        }
+    }
+
+    private List<IndexAdvice.Index> recommend(SearchShape shape, String plan) {
+        List<IndexAdvice.Index> result = new ArrayList<>();
+
+        List<String> memberColumns = new ArrayList<>();
+        if (shape.isUsername()) {
+            memberColumns.add("username");
+        } else if (shape.isTeamName() && shape.hasAge()) {
+            memberColumns.add("team_id");
+        }
+        if (shape.hasAge()) {
+            memberColumns.add("age");
+        }
+        if (!memberColumns.isEmpty() && tableScan(plan, "member")) {
+            result.add(new IndexAdvice.Index("member", memberColumns));
+        }
+        // left join 이지만 team.name 조건이 있으면 null 인 row 가 걸러지므로 대부분의 DB 는 inner join 으로 바꿔서
+        // team 부터 읽을 수 있다. (H2 는 조인 순서를 바꾸지 않아서 member 를 scan 한다)
+        if (shape.isTeamName() && (tableScan(plan, "team") || tableScan(plan, "member"))) {
+            result.add(new IndexAdvice.Index("team", List.of("name")));
+        }
+        return result;
+    }
+
+    // EXPLAIN 을 못했으면 규칙대로 추천
+    private static boolean tableScan(String plan, String table) {
+        return plan == null || plan.toLowerCase(Locale.ROOT).contains(table + ".tablescan");
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.monitor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/indexadvisor
+ * GET : 검색 조건 조합별 통계(shapes)와 상위 shape 의 EXPLAIN, 추천 인덱스(advice)
+ * POST : 추천 인덱스를 실제로 만든다. querydsl.index-advisor.apply-enabled=true 일 때만
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+    private final IndexAdvisor advisor;
+    private final boolean applyEnabled;
+
+    public IndexAdvisorEndpoint(IndexAdvisor advisor,
+                                @Value("${querydsl.index-advisor.apply-enabled:false}") boolean applyEnabled) {
+        this.advisor = advisor;
+        this.applyEnabled = applyEnabled;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        return Map.of("shapes", advisor.getShapes(), "advice", advisor.advise());
+    }
+
+    @WriteOperation
+    public List<String> apply() {
+        if (!applyEnabled) {
+            throw new IllegalStateException("querydsl.index-advisor.apply-enabled=false");
+        }
+        return advisor.apply();
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.monitor;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * fetch, fetchOne, fetchResults, fetchCount 실행시 JPQL 직렬화 시간과 실행 시간, row 수를 QueryMetrics 에 기록하는 JPAQuery
+ *
+ * select(..) 는 같은 인스턴스를 반환하므로 InstrumentedJPAQueryFactory 로 만든 쿼리는 끝까지 이 타입이다.
+ * stream, iterate 는 실행 시간을 정의하기 애매해서 기록하지 않는다.
+ * 호출한 메소드(method)를 따로 넘기지 않으면 직렬화할 때마다 스택에서 찾는다. (InstrumentedJPAQueryFactory.forMethod 참고)
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+    private final QueryMetrics metrics;
+    private final String fixedMethod;
+    private String method;
+    private QueryShape shape;
+    // 실행 한 번 동안의 직렬화 시간 합계 (fetchResults 는 count, 컨텐츠 두 번 직렬화한다)
+    private long buildNanos;
+
+    public InstrumentedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                                QueryMetrics metrics, String method) {
+        super(em, templates, metadata);
+        this.metrics = metrics;
+        this.fixedMethod = method;
+        this.method = method;
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        long start = System.nanoTime();
+        JPQLSerializer serializer = super.serialize(forCountRow);
+        long nanos = System.nanoTime() - start;
+        buildNanos += nanos;
+        shape = metrics.shape(serializer.toString());
+        method = fixedMethod != null ? fixedMethod : CallSite.resolve(InstrumentedJPAQuery.class);
+        metrics.recordBuild(shape, method, nanos);
+        return serializer;
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = startExecution();
+        List<T> result = super.fetch();
+        recordExecution(start, result.size());
+        return result;
+    }
+
+    @Override
+    public T fetchOne() {
+        long start = startExecution();
+        T result = super.fetchOne();
+        recordExecution(start, result == null ? 0 : 1);
+        return result;
+    }
+
+    /**
+     * count, 컨텐츠 두 쿼리를 합친 시간을 컨텐츠 shape 로 기록한다.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        long start = startExecution();
+        QueryResults<T> result = super.fetchResults();
+        recordExecution(start, result.getResults().size());
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long fetchCount() {
+        long start = startExecution();
+        long result = super.fetchCount();
+        recordExecution(start, 1);
+        return result;
+    }
+
+    @Override
+    public InstrumentedJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        InstrumentedJPAQuery<T> query = new InstrumentedJPAQuery<>(entityManager, templates,
+                getMetadata().clone(), metrics, fixedMethod);
+        query.clone(this);
+        return query;
+    }
+
+    private long startExecution() {
+        buildNanos = 0;
+        return System.nanoTime();
+    }
+
+    private void recordExecution(long start, int rows) {
+        metrics.recordExecution(shape, method, System.nanoTime() - start - buildNanos, rows);
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.monitor;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select, selectFrom 등 모든 조회 쿼리를 InstrumentedJPAQuery 로 만드는 JPAQueryFactory
+ * update, delete, insert 는 기존과 같다.
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+    private final EntityManager em;
+    private final QueryMetrics metrics;
+    private final String method;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics metrics) {
+        this(em, metrics, null);
+    }
+
+    private InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics metrics, String method) {
+        super(em);
+        this.em = em;
+        this.metrics = metrics;
+        this.method = method;
+    }
+
+    /**
+     * 만든 쿼리를 모두 method 로 기록하는 팩토리 (예: MemberRepositoryImpl.searchPageComplex)
+     * 같은 JPQL 을 여러 메소드가 만들어도 메소드별로 나뉘고 스택을 볼 필요도 없다.
+     * 계측하지 않는 팩토리는 그대로 돌려준다.
+     */
+    public static JPAQueryFactory forMethod(JPAQueryFactory factory, String method) {
+        if (!(factory instanceof InstrumentedJPAQueryFactory)) {
+            return factory;
+        }
+        InstrumentedJPAQueryFactory instrumented = (InstrumentedJPAQueryFactory) factory;
+        return new InstrumentedJPAQueryFactory(instrumented.em, instrumented.metrics, method);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        // method 가 없으면 실행할 때마다 스택에서 호출한 메소드를 찾는다
+        return new InstrumentedJPAQuery<Void>(em, JPAProvider.getTemplates(em), new DefaultQueryMetadata(),
+                metrics, method);
+    }
+}
@@ -0,0 +1,222 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.HibernateEventListenerConfig.EventListenerRegistrar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * N+1 감지기
+ *
+ * 요청(NPlusOneRequestFilter) 또는 트랜잭션 단위로 실행된 SQL 수와 지연 로딩 횟수를 센다.
+ * - 프록시 초기화 (member.getTeam().getName()) -> LoadEvent(IMMEDIATE_LOAD)
+ * - 컬렉션 초기화 (team.getMembers().size()) -> InitializeCollectionEvent
+ * 같은 엔티티/컬렉션의 지연 로딩이 threshold 번 이상이면 직전에 실행된 부모 쿼리와 함께 N+1 로 판단한다.
+ *
+ * mode
+ * - fail : 바로 NPlusOneException (테스트용)
+ * - report : 범위가 끝날 때 로그와 querydsl.n-plus-one 카운터로 남긴다
+ * - off : 아무것도 하지 않음
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector, LoadEventListener, InitializeCollectionEventListener,
+        EventListenerRegistrar {
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+    private static final ThreadLocal<Scope> REQUEST_SCOPE = new ThreadLocal<>();
+
+    public enum Mode {
+        OFF, REPORT, FAIL
+    }
+
+    private final Mode mode;
+    private final int threshold;
+    private final MeterRegistry meterRegistry;
+
+    public NPlusOneDetector(@Value("${querydsl.n-plus-one.mode:report}") Mode mode,
+                            @Value("${querydsl.n-plus-one.threshold:3}") int threshold,
+                            MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.threshold = threshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void register(EventListenerRegistry registry) {
+        // 실제 로딩(SQL 실행) 전에 호출되어야 부모 쿼리를 알 수 있으므로 앞에 등록
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    /**
+     * 요청 단위로 감지할 때 사용. close 할 때 리포트를 남긴다.
+     */
+    public Scope openScope(String name) {
+        if (mode == Mode.OFF || REQUEST_SCOPE.get() != null) {
+            return Scope.NOOP;
+        }
+        Scope scope = new Scope(name, this);
+        REQUEST_SCOPE.set(scope);
+        return scope;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = currentScope();
+        if (scope != null) {
+            scope.statements++;
+            if (SELECT.matcher(sql).find()) {
+                scope.lastSelect = sql;
+            }
+        }
+        return sql;
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD && !isManaged(event)) {
+            lazyLoaded(event.getEntityClassName(), false);
+        }
+    }
+
+    // batch fetch, prefetch 로 이미 영속성 컨텍스트에 있으면 SQL 없이 초기화되므로 세지 않는다
+    private boolean isManaged(LoadEvent event) {
+        EventSource session = event.getSession();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(event.getEntityClassName());
+        EntityKey key = session.generateEntityKey(event.getEntityId(), persister);
+        return session.getPersistenceContextInternal().getEntity(key) != null;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        lazyLoaded(event.getCollection().getRole(), true);
+    }
+
+    private void lazyLoaded(String target, boolean collection) {
+        Scope scope = currentScope();
+        if (scope == null) {
+            return;
+        }
+        Suspect suspect = scope.suspects.computeIfAbsent(target,
+                key -> new Suspect(key, collection, scope.lastSelect, CallSite.resolve(null)));
+        suspect.count++;
+        if (suspect.count == threshold && mode == Mode.FAIL) {
+            throw new NPlusOneException(suspect.describe());
+        }
+    }
+
+    private Scope currentScope() {
+        if (mode == Mode.OFF) {
+            return null;
+        }
+        Scope scope = REQUEST_SCOPE.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+        scope = (Scope) TransactionSynchronizationManager.getResource(this);
+        if (scope == null) {
+            Scope transactionScope = new Scope("transaction", this);
+            TransactionSynchronizationManager.bindResource(this, transactionScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NPlusOneDetector.this);
+                    transactionScope.report();
+                }
+            });
+            scope = transactionScope;
+        }
+        return scope;
+    }
+
+    private void report(Scope scope) {
+        for (Suspect suspect : scope.suspects.values()) {
+            if (suspect.count < threshold) {
+                continue;
+            }
+            meterRegistry.counter("querydsl.n-plus-one", "target", suspect.target, "method", suspect.method)
+                    .increment();
+            log.warn("[{}] statements={} {}", scope.name, scope.statements, suspect.describe());
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private static final Scope NOOP = new Scope("noop", null);
+
+        private final String name;
+        private final NPlusOneDetector detector;
+        private final Map<String, Suspect> suspects = new LinkedHashMap<>();
+        private int statements;
+        private String lastSelect;
+
+        private Scope(String name, NPlusOneDetector detector) {
+            this.name = name;
+            this.detector = detector;
+        }
+
+        private void report() {
+            detector.report(this);
+        }
+
+        @Override
+        public void close() {
+            if (detector == null) {
+                return;
+            }
+            REQUEST_SCOPE.remove();
+            report();
+        }
+    }
+
+    private static class Suspect {
+        private final String target;
+        private final boolean collection;
+        private final String parentSql;
+        private final String method;
+        private int count;
+
+        Suspect(String target, boolean collection, String parentSql, String method) {
+            this.target = target;
+            this.collection = collection;
+            this.parentSql = parentSql;
+            this.method = method;
+        }
+
+        String describe() {
+            return String.format("N+1 의심: %s 지연 로딩 %d회 (at %s)%n  parent: %s%n  -> %s",
+                    target, count, method, parentSql, suggestion());
+        }
+
+        private String suggestion() {
+            if (collection) {
+                // study.querydsl.entity.Team.members -> team.members
+                String owner = target.substring(0, target.lastIndexOf('.'));
+                String path = simpleName(owner) + target.substring(owner.length());
+                path = Character.toLowerCase(path.charAt(0)) + path.substring(1);
+                return "부모 쿼리에 .leftJoin(" + path + ", ...).fetchJoin() 를 추가하거나 @BatchSize 를 검토하세요";
+            }
+            return "부모 쿼리에서 " + simpleName(target) + " 을 join(..).fetchJoin() 으로 함께 조회하세요";
+        }
+
+        private static String simpleName(String className) {
+            return className.substring(className.lastIndexOf('.') + 1);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.monitor;
+
+/**
+ * querydsl.n-plus-one.mode=fail 일 때 N+1 이 감지되면 발생
+ */
+public class NPlusOneException extends RuntimeException {
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.monitor;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 하나를 N+1 감지 범위로 묶는다.
+ * 컨트롤러에서 여러 트랜잭션을 실행해도 요청 단위로 센다. (OSIV 는 꺼져 있으므로 트랜잭션 밖 지연 로딩은 없다)
+ */
+@Component
+public class NPlusOneRequestFilter extends OncePerRequestFilter {
+    private final NPlusOneDetector detector;
+
+    public NPlusOneRequestFilter(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (NPlusOneDetector.Scope scope = detector.openScope(request.getMethod() + " " + request.getRequestURI())) {
+            chain.doFilter(request, response);
+        }
+    }
+}
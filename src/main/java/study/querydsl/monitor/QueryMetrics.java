@@ -0,0 +1,62 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 쿼리 shape 별 빌드/실행/변환 시간과 row 수를 기록한다.
+ *
+ * shape 는 JPQL 문자열로 구분하고 q1, q2 ... 순서대로 id 를 붙인다.
+ * 동적으로 JPQL 이 무한히 늘어나는 경우를 막기 위해 최대 MAX_SHAPES 개까지만 따로 집계한다.
+ */
+@Component
+public class QueryMetrics {
+    static final int MAX_SHAPES = 1000;
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, QueryShape> shapes = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final QueryShape overflow = new QueryShape("overflow", "(MAX_SHAPES 초과)");
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public QueryShape shape(String jpql) {
+        QueryShape shape = shapes.get(jpql);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= MAX_SHAPES) {
+            return overflow;
+        }
+        return shapes.computeIfAbsent(jpql, key -> new QueryShape("q" + sequence.incrementAndGet(), key));
+    }
+
+    public void recordBuild(QueryShape shape, String method, long nanos) {
+        shape.recordBuild(registry, method, nanos);
+    }
+
+    public void recordExecution(QueryShape shape, String method, long nanos, int rows) {
+        shape.recordExecution(registry, method, nanos, rows);
+    }
+
+    public void recordMapping(QueryShape shape, String method, long nanos) {
+        shape.recordMapping(registry, method, nanos);
+    }
+
+    public Collection<QueryShape> getShapes() {
+        List<QueryShape> result = new ArrayList<>(shapes.values());
+        if (overflow.getExecutions() > 0) {
+            result.add(overflow);
+        }
+        return result;
+    }
+}
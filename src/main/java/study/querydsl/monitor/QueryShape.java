@@ -0,0 +1,126 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 같은 JPQL 문자열을 만드는 쿼리들의 누적 통계
+ * (querydsl 은 값을 ?1 같은 파라미터로 직렬화하므로 JPQL 이 같으면 조건 조합이 같은 쿼리다)
+ *
+ * micrometer 에는 id 만 태그로 남기고 JPQL 원문은 queryshapes 엔드포인트로 확인한다.
+ */
+public class QueryShape {
+    private final String id;
+    private final String jpql;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder executionNanos = new LongAdder();
+    private final LongAccumulator maxExecutionNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder buildNanos = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    QueryShape(String id, String jpql) {
+        this.id = id;
+        this.jpql = jpql;
+    }
+
+    void recordBuild(MeterRegistry registry, String method, long nanos) {
+        builds.increment();
+        buildNanos.add(nanos);
+        meters(registry, method).build.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordExecution(MeterRegistry registry, String method, long nanos, int rowCount) {
+        executions.increment();
+        executionNanos.add(nanos);
+        maxExecutionNanos.accumulate(nanos);
+        rows.add(rowCount);
+        Meters m = meters(registry, method);
+        m.execution.record(nanos, TimeUnit.NANOSECONDS);
+        m.rows.record(rowCount);
+    }
+
+    void recordMapping(MeterRegistry registry, String method, long nanos) {
+        meters(registry, method).mapping.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Meters meters(MeterRegistry registry, String method) {
+        return meters.computeIfAbsent(method, key -> new Meters(registry, id, key));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public Set<String> getMethods() {
+        return new TreeSet<>(meters.keySet());
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public double getTotalExecutionMillis() {
+        return executionNanos.sum() / 1_000_000.0;
+    }
+
+    public double getMeanExecutionMillis() {
+        long count = executions.sum();
+        return count == 0 ? 0 : getTotalExecutionMillis() / count;
+    }
+
+    public double getMaxExecutionMillis() {
+        return maxExecutionNanos.get() / 1_000_000.0;
+    }
+
+    public double getMeanBuildMillis() {
+        long count = builds.sum();
+        return count == 0 ? 0 : buildNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMeanRows() {
+        long count = executions.sum();
+        return count == 0 ? 0 : (double) rows.sum() / count;
+    }
+
+    private static class Meters {
+        private final Timer build;
+        private final Timer execution;
+        private final Timer mapping;
+        private final DistributionSummary rows;
+
+        Meters(MeterRegistry registry, String shape, String method) {
+            this.build = Timer.builder("querydsl.query.build")
+                    .description("querydsl 쿼리를 JPQL 로 직렬화하는 시간")
+                    .tags("shape", shape, "method", method)
+                    .register(registry);
+            this.execution = Timer.builder("querydsl.query.execution")
+                    .description("JPQL 실행 시간 (하이버네이트 결과 변환 포함)")
+                    .tags("shape", shape, "method", method)
+                    .register(registry);
+            this.mapping = Timer.builder("querydsl.query.mapping")
+                    .description("조회 결과를 프로젝션 객체로 변환하는 시간")
+                    .tags("shape", shape, "method", method)
+                    .register(registry);
+            this.rows = DistributionSummary.builder("querydsl.query.rows")
+                    .description("조회된 row 수")
+                    .tags("shape", shape, "method", method)
+                    .register(registry);
+        }
+    }
+}
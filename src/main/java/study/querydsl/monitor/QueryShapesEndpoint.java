@@ -0,0 +1,40 @@
+package study.querydsl.monitor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * /actuator/queryshapes
+ * DB 시간을 많이 쓰는 shape 순(총 실행 시간 내림차순)으로 JPQL 과 통계를 보여준다.
+ * 시간 분포는 /actuator/metrics/querydsl.query.execution?tag=shape:q1 로 확인
+ */
+@Component
+@Endpoint(id = "queryshapes")
+public class QueryShapesEndpoint {
+    private final QueryMetrics metrics;
+
+    public QueryShapesEndpoint(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<QueryShape> shapes() {
+        return metrics.getShapes().stream()
+                .sorted(Comparator.comparingDouble(QueryShape::getTotalExecutionMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @ReadOperation
+    public QueryShape shape(@Selector String id) {
+        return metrics.getShapes().stream()
+                .filter(shape -> shape.getId().equals(id))
+                .findFirst()
+                .orElse(null);
+    }
+}
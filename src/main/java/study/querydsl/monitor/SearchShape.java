@@ -0,0 +1,136 @@
+package study.querydsl.monitor;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원 검색에 실제로 적용된 where 조건 조합과 누적 통계 (IndexAdvisor)
+ */
+public class SearchShape {
+    private final boolean username;
+    private final boolean usernameContains;
+    private final boolean teamName;
+    private final boolean ageGoe;
+    private final boolean ageLoe;
+    private final String key;
+
+    private final Set<String> methods = ConcurrentHashMap.newKeySet();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    // EXPLAIN 에 바인딩할 값
+    private volatile MemberSearchCondition sample;
+
+    private SearchShape(boolean username, boolean usernameContains, boolean teamName, boolean ageGoe, boolean ageLoe) {
+        this.username = username;
+        this.usernameContains = usernameContains;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+
+        this.key = key(username, usernameContains, teamName, ageGoe, ageLoe);
+    }
+
+    static SearchShape of(MemberSearchCondition applied) {
+        return new SearchShape(hasText(applied.getUsername()), hasText(applied.getUsernameContains()),
+                hasText(applied.getTeamName()), applied.getAgeGoe() != null, applied.getAgeLoe() != null);
+    }
+
+    /**
+     * 통계 없이 조건 조합 키만 (AdaptivePaginationExecutor 의 추정치 키 등)
+     */
+    public static String keyOf(MemberSearchCondition applied) {
+        return key(hasText(applied.getUsername()), hasText(applied.getUsernameContains()),
+                hasText(applied.getTeamName()), applied.getAgeGoe() != null, applied.getAgeLoe() != null);
+    }
+
+    private static String key(boolean username, boolean usernameContains, boolean teamName,
+                              boolean ageGoe, boolean ageLoe) {
+        List<String> predicates = new ArrayList<>();
+        if (username) {
+            predicates.add("member.username =");
+        }
+        if (usernameContains) {
+            predicates.add("member.username like");
+        }
+        if (teamName) {
+            predicates.add("team.name =");
+        }
+        if (ageGoe) {
+            predicates.add("member.age >=");
+        }
+        if (ageLoe) {
+            predicates.add("member.age <=");
+        }
+        return predicates.isEmpty() ? "(no condition)" : String.join(", ", predicates);
+    }
+
+    void record(String method, MemberSearchCondition applied, long elapsedNanos) {
+        methods.add(method);
+        executions.increment();
+        nanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        sample = applied;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Set<String> getMethods() {
+        return Set.copyOf(methods);
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public double getTotalMillis() {
+        return nanos.sum() / 1_000_000.0;
+    }
+
+    public double getAverageMillis() {
+        long count = executions.sum();
+        return count == 0 ? 0 : nanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    MemberSearchCondition getSample() {
+        return sample;
+    }
+
+    boolean isUsername() {
+        return username;
+    }
+
+    boolean isUsernameContains() {
+        return usernameContains;
+    }
+
+    boolean isTeamName() {
+        return teamName;
+    }
+
+    boolean isAgeGoe() {
+        return ageGoe;
+    }
+
+    boolean isAgeLoe() {
+        return ageLoe;
+    }
+
+    boolean hasAge() {
+        return ageGoe || ageLoe;
+    }
+}
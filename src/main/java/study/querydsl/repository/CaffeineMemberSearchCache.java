@@ -0,0 +1,53 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static study.querydsl.repository.support.CacheableScope.isCacheable;
+
+/**
+ * Caffeine(W-TinyLFU) 기반 검색 결과 캐시
+ * - 결과 row 수를 weight 로 사용해서 전체 캐시 크기를 row 수 기준으로 제한
+ * - hit/miss/eviction 은 micrometer 의 cache.* 메트릭으로 노출 (cache=memberSearch)
+ */
+@Component
+public class CaffeineMemberSearchCache implements MemberSearchCache {
+    private final Cache<MemberSearchCondition, List<MemberTeamDto>> cache;
+
+    public CaffeineMemberSearchCache(@Value("${member.search-cache.ttl:1m}") Duration ttl,
+                                     @Value("${member.search-cache.max-rows:100000}") long maxRows,
+                                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxRows)
+                .weigher((MemberSearchCondition key, List<MemberTeamDto> value) -> Math.max(1, value.size()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberSearch");
+    }
+
+    @Override
+    public List<MemberTeamDto> get(MemberSearchCondition cond,
+                                   Function<MemberSearchCondition, List<MemberTeamDto>> loader) {
+        if (!isCacheable()) {
+            return loader.apply(cond);
+        }
+        // 캐시된 리스트를 호출하는쪽에서 변경하지 못하도록 불변 리스트로 보관
+        return cache.get(cond.normalized(), key -> List.copyOf(loader.apply(key)));
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
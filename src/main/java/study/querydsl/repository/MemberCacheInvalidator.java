@@ -0,0 +1,43 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * member, team 테이블에 쓰기 SQL 이 나가면 검색 관련 캐시를 비운다.
+ *
+ * 엔티티 리스너로는 querydsl 의 update(member), delete(member) 같은 벌크 연산을 잡을 수 없으므로
+ * 하이버네이트가 실행하는 SQL 자체를 본다. (MemberChangeHook)
+ * - em.persist (MemberJpaRepository.save) -> insert into member
+ * - 변경감지 (Member.changeTeam) -> update member set ... team_id=?
+ * - 벌크 연산 -> update member / delete from member
+ *
+ * 실행 직후와 트랜잭션 종료 후(커밋, 롤백 모두) 두 번 비운다.
+ * 트랜잭션 도중에 다른 요청이 이전 데이터로 캐시를 다시 채울 수 있기 때문
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCacheInvalidator implements MemberChangeHook.Listener {
+    private final MemberSearchCache searchCache;
+    private final MemberCountCache countCache;
+
+    @Override
+    public boolean accepts(MemberChangeHook.Table table, MemberChangeHook.Kind kind) {
+        return true;
+    }
+
+    @Override
+    public void onWrite(MemberChangeHook.Table table, MemberChangeHook.Kind kind) {
+        invalidateAll();
+    }
+
+    @Override
+    public void afterCompletion(boolean committed) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        searchCache.invalidateAll();
+        countCache.invalidateAll();
+    }
+}
@@ -0,0 +1,214 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.HibernateEventListenerConfig.EventListenerRegistrar;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * member, team 테이블에 쓰기 SQL 이 나가면 등록된 Listener 들에게 알린다.
+ *
+ * 엔티티 이벤트로는 querydsl 의 update(member), delete(member) 같은 벌크 연산을 잡을 수 없으므로
+ * 하이버네이트가 실행하는 SQL 자체를 본다.
+ * SQL 모양으로는 엔티티 단위 쓰기와 id 조건 벌크 연산(where member.id = ?)을 구분할 수 없으므로
+ * 하이버네이트 엔티티 액션이 실행되는 동안(PRE_INSERT/UPDATE/DELETE ~ POST_*) 표시를 해두고
+ * 그 사이에 나간 SQL 만 ENTITY, 나머지는 모두 BULK 로 본다.
+ * (use_sql_comments 로 붙는 앞쪽 주석은 건너뛴다)
+ *
+ * Listener 는 SQL 실행 직후(onWrite)와 트랜잭션 종료 후 한 번(afterCompletion) 호출된다.
+ * 트랜잭션 밖이면 afterCompletion 도 바로 호출된다.
+ */
+@Slf4j
+@Component
+public class MemberChangeHook implements StatementInspector, EventListenerRegistrar,
+        PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final Pattern WRITE_SQL = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(insert\\s+into|update|delete\\s+from)\\s+(member|team)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Object SYNC_KEY = new Object();
+    // 지금 이 쓰레드에서 실행 중인 엔티티 액션의 테이블
+    private static final ThreadLocal<Table> ENTITY_ACTION = new ThreadLocal<>();
+
+    public enum Table {
+        MEMBER, TEAM
+    }
+
+    public enum Kind {
+        // 엔티티 단위 insert/update/delete (엔티티 이벤트도 발생), 그 외 (벌크 update/delete, insert ... select 등)
+        ENTITY, BULK
+    }
+
+    public interface Listener {
+        boolean accepts(Table table, Kind kind);
+
+        default void onWrite(Table table, Kind kind) {
+        }
+
+        /**
+         * 받아들인 쓰기가 있었던 트랜잭션이 끝난 뒤 한 번
+         */
+        void afterCompletion(boolean committed);
+    }
+
+    private final ObjectProvider<Listener> provider;
+    private volatile List<Listener> listeners;
+
+    // 리스너들은 EntityManagerFactory 생성 중에 만들어지므로 처음 쓸 때 가져온다
+    @Autowired
+    public MemberChangeHook(ObjectProvider<Listener> provider) {
+        this.provider = provider;
+    }
+
+    MemberChangeHook(List<Listener> listeners) {
+        this.provider = null;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void register(EventListenerRegistry registry) {
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.PRE_UPDATE, this);
+        registry.appendListeners(EventType.PRE_DELETE, this);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        entityActionStarted(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        entityActionStarted(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        entityActionStarted(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        ENTITY_ACTION.remove();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        ENTITY_ACTION.remove();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        ENTITY_ACTION.remove();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = WRITE_SQL.matcher(sql);
+        if (!matcher.find()) {
+            return sql;
+        }
+        Table written = Table.valueOf(matcher.group(2).toUpperCase(Locale.ROOT));
+        // 액션 도중 SQL 실행 전에 실패해서 POST 가 오지 않은 표시가 다음 벌크 연산에 붙지 않도록 한 번 쓰면 지운다
+        Table entityAction = ENTITY_ACTION.get();
+        ENTITY_ACTION.remove();
+        Kind kind = entityAction == written ? Kind.ENTITY : Kind.BULK;
+        for (Listener listener : getListeners()) {
+            if (listener.accepts(written, kind)) {
+                listener.onWrite(written, kind);
+                afterCompletion(listener);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * 현재 트랜잭션이 끝난 뒤 listener.afterCompletion 을 한 번 호출한다. 트랜잭션 밖이면 바로 호출
+     */
+    public static void afterCompletion(Listener listener) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            listener.afterCompletion(true);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Listener> pending = (Set<Listener>) TransactionSynchronizationManager.getResource(SYNC_KEY);
+        if (pending == null) {
+            Set<Listener> transactionListeners = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(SYNC_KEY, transactionListeners);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SYNC_KEY);
+                    for (Listener each : transactionListeners) {
+                        try {
+                            each.afterCompletion(status == STATUS_COMMITTED);
+                        } catch (RuntimeException e) {
+                            log.error("member change listener failed: {}", each.getClass().getSimpleName(), e);
+                        }
+                    }
+                }
+            });
+            pending = transactionListeners;
+        }
+        pending.add(listener);
+    }
+
+    private static void entityActionStarted(Object entity) {
+        if (entity instanceof Member) {
+            ENTITY_ACTION.set(Table.MEMBER);
+        } else if (entity instanceof Team) {
+            ENTITY_ACTION.set(Table.TEAM);
+        } else {
+            ENTITY_ACTION.remove();
+        }
+    }
+
+    private List<Listener> getListeners() {
+        List<Listener> result = listeners;
+        if (result == null) {
+            result = provider.orderedStream().collect(Collectors.toList());
+            listeners = result;
+        }
+        return result;
+    }
+}
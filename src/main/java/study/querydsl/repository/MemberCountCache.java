@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import static study.querydsl.repository.support.CacheableScope.isCacheable;
+
+/**
+ * 검색 조건별 total count 캐시
+ * 페이징 API 에서 가장 비싼 쿼리가 count 이므로 조건이 같으면 TTL 동안 재사용한다.
+ *
+ * 쓰기 트랜잭션 안에서는 캐시를 사용하지 않는다. (CacheableScope 참고)
+ * member, team 변경시 MemberCacheInvalidator 가 비워준다.
+ */
+@Component
+public class MemberCountCache {
+    private final Cache<MemberSearchCondition, Long> cache;
+    private final long estimateCap;
+
+    public MemberCountCache(@Value("${member.count.cache-ttl:30s}") Duration ttl,
+                            @Value("${member.count.cache-max-size:10000}") long maxSize,
+                            @Value("${member.count.estimate-cap:1000}") long estimateCap,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.estimateCap = estimateCap;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberCount");
+    }
+
+    public long get(MemberSearchCondition cond, LongSupplier counter) {
+        if (!isCacheable()) {
+            return counter.getAsLong();
+        }
+        return cache.get(cond.normalized(), key -> counter.getAsLong());
+    }
+
+    public Long getIfPresent(MemberSearchCondition cond) {
+        return isCacheable() ? cache.getIfPresent(cond.normalized()) : null;
+    }
+
+    public void put(MemberSearchCondition cond, long total) {
+        if (isCacheable()) {
+            cache.put(cond.normalized(), total);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 추정 total 모드에서 정확히 세어볼 최대 건수
+     */
+    public long getEstimateCap() {
+        return estimateCap;
+    }
+}
@@ -5,8 +5,13 @@ import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberDto;
@@ -14,33 +19,45 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.monitor.IndexAdvisor;
+import study.querydsl.monitor.QueryMetrics;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
+@Transactional(readOnly = true)
 //@RequiredArgsConstructor
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryTemplates searchTemplates;
+    private final IndexAdvisor indexAdvisor;
 
     // 이렇게 만들어서 쓰면 tc 작성이 좀 편하고
-    public MemberJpaRepository(EntityManager em) {
-        this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
-    }
-
-    // 이건 lombok 의 도움을 받을 수 있지만 외부에서 JPAQueryFactory Bean을 생성해둬야함.
-//    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+//    public MemberJpaRepository(EntityManager em) {
 //        this.em = em;
-//        this.queryFactory = queryFactory;
+//        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
+    // 이건 외부에서 JPAQueryFactory Bean을 생성해둬야함.
+    // 쿼리 메트릭을 남기기 위해 QueryDslConfig 의 InstrumentedJPAQueryFactory 를 사용
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, QueryMetrics queryMetrics,
+                               IndexAdvisor indexAdvisor) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.searchTemplates = new MemberSearchQueryTemplates(em, queryMetrics, "MemberJpaRepository.search");
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -82,6 +99,9 @@ public class MemberJpaRepository {
         if (hasText(cond.getUsername())) {
             builder.and(member.username.eq(cond.getUsername()));
         }
+        if (hasText(cond.getUsernameContains())) {
+            builder.and(member.username.containsIgnoreCase(cond.getUsernameContains().trim()));
+        }
         if (hasText(cond.getTeamName())) {
             builder.and(team.name.eq(cond.getTeamName()));
         }
@@ -93,7 +113,8 @@ public class MemberJpaRepository {
         }
 
 
-        return queryFactory
+        long start = System.nanoTime();
+        List<MemberTeamDto> result = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -105,9 +126,23 @@ public class MemberJpaRepository {
                 .leftJoin(member.team, team)
                 .where(builder)
                 .fetch();
+        // 여기서는 나이 조건을 하나씩도 적용하므로 normalized 하지 않은 조건 그대로
+        indexAdvisor.record("searchByBuilder", cond, System.nanoTime() - start);
+        return result;
     }
 
+    /**
+     * 동적 where 이지만 조건 조합별로 JPQL 을 한 번만 만들어서 재사용 (MemberSearchQueryTemplates)
+     */
     public List<MemberTeamDto> search(MemberSearchCondition search) {
+        return searchTemplates.search(search);
+    }
+
+    /**
+     * search 와 같은 조건이지만 전체를 List 로 올리지 않고 커서처럼 한 row 씩 읽는다.
+     * 반드시 트랜잭션 안에서 사용하고 다 쓴 뒤 close 해야함 (try-with-resources)
+     */
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition search, int fetchSize) {
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -120,12 +155,43 @@ public class MemberJpaRepository {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(search.getUsername()),
+                        usernameContains(search.getUsernameContains()),
                         teamNameEq(search.getTeamName()),
-//                        ageGoe(search.getAgeGoe()),
-//                        ageLoe(search.getAgeLoe())
                         ageBetween(search.getAgeLoe(), search.getAgeGoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .stream();
+    }
+
+    /**
+     * search 와 같은 조건의 id, 나이, 팀 이름을 컬럼 배열로 읽는다. (리포트, 집계용)
+     * 결과를 row 객체 List 로 만들지 않고 fetchSize 단위로 스크롤하면서 바로 배열에 담는다.
+     */
+    public MemberColumns searchColumns(MemberSearchCondition search, int fetchSize) {
+        Query query = queryFactory
+                .select(member.id, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(search.getUsername()),
+                        usernameContains(search.getUsernameContains()),
+                        teamNameEq(search.getTeamName()),
+                        ageBetween(search.getAgeLoe(), search.getAgeGoe())
+                )
+                .createQuery();
+
+        MemberColumns.Builder columns = MemberColumns.builder(fetchSize);
+        ScrollableResults rows = query.unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (rows.next()) {
+                columns.add((Long) rows.get(0), (Integer) rows.get(1), (String) rows.get(2));
+            }
+        } finally {
+            rows.close();
+        }
+        return columns.build();
     }
 
     private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
@@ -150,4 +216,9 @@ public class MemberJpaRepository {
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
+
+    // 인덱스 없이 like '%x%' (MemberRepositoryImpl 은 UsernameIndex 를 사용)
+    private BooleanExpression usernameContains(String keyword) {
+        return hasText(keyword) ? member.username.containsIgnoreCase(keyword.trim()) : null;
+    }
 }
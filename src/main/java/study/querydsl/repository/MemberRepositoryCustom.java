@@ -2,6 +2,9 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -12,5 +15,9 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition cond);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable pageable);
+    Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition cond, Pageable pageable);
+    MemberCursorSlice searchSlice(MemberSearchCondition cond, MemberCursor cursor, int size);
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition cond, Pageable pageable);
+    List<MemberTeamDto> searchUsername(String keyword, int limit);
 
 }
@@ -1,19 +1,39 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.monitor.IndexAdvisor;
+import study.querydsl.monitor.InstrumentedJPAQueryFactory;
+import study.querydsl.monitor.QueryMetrics;
+import study.querydsl.monitor.SearchShape;
+import study.querydsl.repository.support.AdaptivePaginationExecutor;
+import study.querydsl.repository.support.CountQueries;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
@@ -24,15 +44,55 @@ import static study.querydsl.entity.QTeam.team;
 커스텀 Repo 구현체의 이름 규칙
 인터페이스이름 + Impl
  */
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
+    private static final int MAX_INDEX_IDS = 1000;
+
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchCache searchCache;
+    private final MemberSearchQueryTemplates searchTemplates;
+    private final UsernameIndex usernameIndex;
+    private final IndexAdvisor indexAdvisor;
+    private final AdaptivePaginationExecutor paginationExecutor;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, QueryMetrics queryMetrics,
+                                MemberCountCache countCache, MemberSearchCache searchCache,
+                                UsernameIndex usernameIndex, IndexAdvisor indexAdvisor,
+                                AdaptivePaginationExecutor paginationExecutor) {
+        this.queryFactory = queryFactory;
+        this.searchTemplates = new MemberSearchQueryTemplates(em, queryMetrics, "MemberRepositoryImpl.fetchSearch");
+        this.countCache = countCache;
+        this.searchCache = searchCache;
+        this.usernameIndex = usernameIndex;
+        this.indexAdvisor = indexAdvisor;
+        this.paginationExecutor = paginationExecutor;
     }
 
+    /**
+     * 같은 조건으로 반복 조회되는 경우가 많아서 결과를 캐시한다. (MemberSearchCache)
+     */
     public List<MemberTeamDto> search(MemberSearchCondition search) {
-        return queryFactory
+        return searchCache.get(search, this::fetchSearch);
+    }
+
+    /**
+     * 조건 조합별로 미리 만들어둔 JPQL 을 재사용 (MemberSearchQueryTemplates)
+     * usernameContains 가 있으면 인덱스 조건을 붙인 동적 쿼리
+     */
+    private List<MemberTeamDto> fetchSearch(MemberSearchCondition search) {
+        long start = System.nanoTime();
+        // 캐시를 거치지 않으면 정규화되지 않은 조건이 넘어온다 (빈 문자열, 나이 조건 하나만 있는 경우)
+        MemberSearchCondition applied = search.normalized();
+        List<MemberTeamDto> result = applied.getUsernameContains() == null ?
+                searchTemplates.search(applied) :
+                fetchSearchContains(applied);
+        indexAdvisor.record("search", applied, System.nanoTime() - start);
+        return result;
+    }
+
+    private List<MemberTeamDto> fetchSearchContains(MemberSearchCondition search) {
+        return queryFactory("fetchSearchContains")
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -44,17 +104,48 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(search.getUsername()),
+                        usernameContains(search.getUsernameContains()),
                         teamNameEq(search.getTeamName()),
-//                        ageGoe(search.getAgeGoe()),
-//                        ageLoe(search.getAgeLoe())
                         ageBetween(search.getAgeLoe(), search.getAgeGoe())
                 )
                 .fetch();
     }
 
+    /**
+     * username 에 keyword 가 포함된 회원을 순위대로 (정확히 일치 > 앞부분 일치 > 중간 일치, UsernameIndex)
+     * 인덱스에서 순위를 정하고 DB 에서는 id 로만 조회한다.
+     */
+    @Override
+    public List<MemberTeamDto> searchUsername(String keyword, int limit) {
+        List<Long> ids = usernameIndex.search(keyword, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<MemberTeamDto> content = queryFactory("searchUsername")
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName"))
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(ids), member.username.containsIgnoreCase(keyword.trim()))
+                .fetch();
+
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        content.sort(Comparator.comparing(dto -> rank.get(dto.getMemberId())));
+        return content;
+    }
+
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        long start = System.nanoTime();
+        QueryResults<MemberTeamDto> results = queryFactory("searchPageSimple")
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -66,6 +157,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(cond.getUsername()),
+                        usernameContains(cond.getUsernameContains()),
                         teamNameEq(cond.getTeamName()),
                         ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
                 )
@@ -75,6 +167,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
+        indexAdvisor.record("searchPageSimple", cond.normalized(), System.nanoTime() - start);
 
         return new PageImpl<>(content, pageable, total);
     }
@@ -83,19 +176,59 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      * 리스트, 카운트 쿼리 분리
      * 1. 카운트를 얻을 때 불필요한 join을 제거한다던가 쿼리 최적화 가능
      * 2. 카운트 쿼리를 먼저 돌리고 0건이면 list를 안 돌린다던가 추가적인 튜닝 가능
+     *    -> AdaptivePaginationExecutor 가 조건 조합(SearchShape)별로 지금까지의 total 을 보고
+     *       결과가 거의 없거나 offset 이 예상 total 보다 뒤면 count 를 먼저 실행한다.
+     *       total 은 항상 정확해야 하므로 최대 건수까지만 세는 방식은 쓰지 않는다. (searchPageEstimated 참고)
+     * 3. 컨텐츠는 deferred join 으로 조회한다. id 만 먼저 페이징하므로 offset 이 커도 버려지는 row 가 가볍다. (DeferredJoin)
      * */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable pageable) {
-        JPAQuery<Long> countQuery = queryFactory.select(member.count())
+        JPAQueryFactory factory = queryFactory("searchPageComplex");
+        long start = System.nanoTime();
+        JPAQuery<MemberTeamDto> contentQuery = factory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName"))
+                )
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(cond.getUsername()),
+                        usernameContains(cond.getUsernameContains()),
                         teamNameEq(cond.getTeamName()),
                         ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
                 );
 
-        List<MemberTeamDto> content = queryFactory
+        // teamName 조건이 없으면 team join 이 빠진 count 쿼리가 만들어진다
+        JPAQuery<Long> countQuery = CountQueries.derive(factory, contentQuery);
+
+        /*
+        컨텐츠를 먼저 조회하는 경우 PageableExecutionUtils 를 이용하면 count 쿼리가 불필요한 경우 count 쿼리를 수행하지 않는다.
+        1. 첫페이지 조회했는데 컨텐츠 크기가 요청크기보다 더 작으면 컨텐츠 크기 == total 이고
+        2. 조회했더니 마지막 페이지라면 offset 에 컨텐츠 크기를 더하면 == total 인점을 활용한 튜닝.
+        세부 구현은 코드를 직접 확인해보자
+         */
+        MemberSearchCondition applied = cond.normalized();
+        Page<MemberTeamDto> page = paginationExecutor.execute("searchPageComplex", SearchShape.keyOf(applied),
+                pageable, contentQuery, null, member.id, () -> countCache.get(cond, countQuery::fetchOne));
+        indexAdvisor.record("searchPageComplex", applied, System.nanoTime() - start);
+        return page;
+    }
+
+    /**
+     * total 을 정확히 세지 않는 페이징
+     * 1. 캐시에 같은 조건의 total 이 있으면 그 값을 사용하고
+     * 2. 없으면 최대 estimateCap(또는 현재 페이지 끝) + 1 건까지만 센다.
+     *    그 안에 끝나면 정확한 값이므로 캐시에 넣고, 넘치면 "cap 건 초과" 를 total 로 내려준다.
+     * 페이지 번호를 전부 보여줄 필요가 없는 화면에서 대량 count scan 을 피하기 위한 용도
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition cond, Pageable pageable) {
+        JPAQueryFactory factory = queryFactory("searchPageEstimated");
+        JPAQuery<MemberTeamDto> contentQuery = factory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -107,23 +240,178 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(cond.getUsername()),
+                        usernameContains(cond.getUsernameContains()),
                         teamNameEq(cond.getTeamName()),
                         ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
-                )
+                );
+
+        long cap = Math.max(countCache.getEstimateCap(), pageable.getOffset() + pageable.getPageSize());
+        JPAQuery<MemberTeamDto> cappedQuery = contentQuery.clone();
+
+        List<MemberTeamDto> content = contentQuery
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            Long cached = countCache.getIfPresent(cond);
+            if (cached != null) {
+                return cached;
+            }
+            long total = CountQueries.fetchCapped(factory, cappedQuery, member.id, cap);
+            if (total <= cap) {
+                countCache.put(cond, total);
+            }
+            return total;
+        });
+    }
 
-//        return new PageImpl<>(content, pageable, total);
+    /**
+     * keyset(seek) 페이징
+     * offset 방식은 앞 페이지의 row 를 모두 읽고 버리므로 뒤로 갈수록 느려지지만
+     * 마지막 row 의 (정렬키, id) 이후부터 읽으면 페이지 깊이와 상관없이 인덱스 탐색 한 번으로 시작할 수 있다.
+     * 다음 페이지 여부는 size + 1 건을 조회해서 판단하므로 count 쿼리도 필요없다.
+     */
+    @Override
+    public MemberCursorSlice searchSlice(MemberSearchCondition cond, MemberCursor cursor, int size) {
+        Assert.isTrue(size > 0, "size must be greater than 0");
 
-        /*
-        이 방식을 이용하면 count 쿼리가 불필요한 경우 count 쿼리를 수행하지 않고 쿼리를 수행해준다.
-        1. 첫페이지 조회했는데 컨텐츠 크기가 요청크기보다 더 작으면 컨텐츠 크기 == total 이고
-        2. 조회했더니 마지막 페이지라면 offset 에 컨텐츠 크기를 더하면 == total 인점을 활용한 튜닝.
-        세부 구현은 코드를 직접 확인해보자
-         */
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchOne());
+        List<MemberTeamDto> content = queryFactory("searchSlice")
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName"))
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        usernameContains(cond.getUsernameContains()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        cursorAfter(cursor)
+                )
+                .orderBy(cursorOrder(cursor.getSortKey()))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        String nextCursor = hasNext ?
+                MemberCursor.after(cursor.getSortKey(), content.get(content.size() - 1)).encode() :
+                null;
+
+        return new MemberCursorSlice(content, hasNext, nextCursor);
+    }
+
+    /**
+     * total 이 필요없는 무한 스크롤용 페이징
+     * size + 1 건을 조회해서 다음 페이지 여부만 판단하므로 count 쿼리가 전혀 나가지 않는다.
+     * offset 방식이므로 깊은 페이지는 cursor 방식(searchSlice(cond, cursor, size))이 낫다.
+     * 정렬은 MemberTeamDto 의 memberId, username, age, teamName 만 지원한다.
+     * @throws IllegalArgumentException 지원하지 않는 정렬 속성
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition cond, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = queryFactory("searchSlice")
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName"))
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        usernameContains(cond.getUsernameContains()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                )
+                .orderBy(sliceOrder(pageable.getSort()));
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.fetch(), pageable, false);
+        }
+
+        List<MemberTeamDto> content = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 페이지 사이에 누락/중복이 없도록 항상 id 를 마지막 정렬키(tiebreaker)로 붙인다.
+     */
+    private OrderSpecifier<?>[] sliceOrder(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            Order direction = order.isAscending() ? Order.ASC : Order.DESC;
+            switch (order.getProperty()) {
+                case "memberId":
+                    orders.add(new OrderSpecifier<>(direction, member.id));
+                    byId = true;
+                    break;
+                case "username":
+                    orders.add(new OrderSpecifier<>(direction, member.username));
+                    break;
+                case "age":
+                    orders.add(new OrderSpecifier<>(direction, member.age));
+                    break;
+                case "teamName":
+                    orders.add(new OrderSpecifier<>(direction, team.name));
+                    break;
+                default:
+                    throw new IllegalArgumentException("지원하지 않는 정렬입니다. sort=" + order.getProperty());
+            }
+        }
+        if (!byId) {
+            orders.add(member.id.asc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    /**
+     * 같은 JPQL 을 만드는 메소드가 여러개라서 쿼리 메트릭의 method 는 스택에서 찾지 않고 직접 넘긴다.
+     */
+    private JPAQueryFactory queryFactory(String method) {
+        return InstrumentedJPAQueryFactory.forMethod(queryFactory, "MemberRepositoryImpl." + method);
+    }
+
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        switch (cursor.getSortKey()) {
+            case AGE:
+                // 정렬키가 같은 row 가 여러개일 수 있으므로 id 를 tiebreaker 로 사용
+                return member.age.gt(cursor.getLastAge())
+                        .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastId())));
+            case ID:
+            default:
+                return member.id.gt(cursor.getLastId());
+        }
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor.SortKey sortKey) {
+        switch (sortKey) {
+            case AGE:
+                return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case ID:
+            default:
+                return new OrderSpecifier<?>[]{member.id.asc()};
+        }
     }
 
     private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
@@ -148,4 +436,17 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
+
+    /**
+     * 일치하는 회원이 MAX_INDEX_IDS 명 이하면 인덱스에서 찾은 id 로 범위를 좁힌다. (그보다 많으면 in 절이 너무 커진다)
+     * 인덱스는 이름이 바뀐 직후 등에 틀릴 수 있으므로 like '%x%' 조건은 항상 같이 건다.
+     */
+    private BooleanExpression usernameContains(String keyword) {
+        if (!hasText(keyword)) {
+            return null;
+        }
+        BooleanExpression contains = member.username.containsIgnoreCase(keyword.trim());
+        Set<Long> ids = usernameIndex.matchingIds(keyword, MAX_INDEX_IDS);
+        return ids != null ? member.id.in(ids).and(contains) : contains;
+    }
 }
@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * MemberRepositoryCustom.search 결과 캐시
+ * 구현체를 바꿔 끼울 수 있도록 인터페이스로 분리 (기본 구현은 CaffeineMemberSearchCache)
+ */
+public interface MemberSearchCache {
+
+    /**
+     * 캐시에 있으면 캐시된 결과를, 없으면 loader 로 조회한 결과를 캐시에 넣고 반환
+     */
+    List<MemberTeamDto> get(MemberSearchCondition cond, Function<MemberSearchCondition, List<MemberTeamDto>> loader);
+
+    void invalidateAll();
+}
@@ -0,0 +1,145 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.monitor.QueryMetrics;
+import study.querydsl.monitor.QueryShape;
+import study.querydsl.repository.support.PreparedJPQL;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 쿼리의 shape 별 JPQL 캐시
+ *
+ * 검색 조건 4개(username, teamName, ageGoe, ageLoe)의 사용여부 조합은 최대 2^4 = 16 가지 뿐이다.
+ * 조합(shape)마다 처음 한 번만 querydsl 로 JPQL 을 만들어두고 이후에는 파라미터만 바인딩한다.
+ */
+public class MemberSearchQueryTemplates {
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private final EntityManager em;
+    private final QueryMetrics metrics;
+    private final String method;
+    private final AtomicReferenceArray<PreparedJPQL<MemberTeamDto>> shapes = new AtomicReferenceArray<>(16);
+
+    public MemberSearchQueryTemplates(EntityManager em) {
+        this(em, null, null);
+    }
+
+    /**
+     * metrics 를 넘기면 실행 시간, 변환 시간, row 수를 shape 와 method(예: MemberRepositoryImpl.fetchSearch) 별로 기록한다.
+     */
+    public MemberSearchQueryTemplates(EntityManager em, QueryMetrics metrics, String method) {
+        this.em = em;
+        this.metrics = metrics;
+        this.method = method;
+    }
+
+    /**
+     * where 다중 파라미터 방식과 같은 규칙 (나이 조건은 ageGoe, ageLoe 가 모두 있을 때만 적용)
+     * usernameContains 는 shape 로 만들지 않고 like 조건의 동적 쿼리로 처리한다.
+     * (인덱스를 사용하는 검색은 MemberRepositoryImpl)
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition cond) {
+        MemberSearchCondition normalized = cond.normalized();
+        if (normalized.getUsernameContains() != null) {
+            return searchQuery(0)
+                    .where(
+                            hasText(normalized.getUsername()) ? member.username.eq(normalized.getUsername()) : null,
+                            hasText(normalized.getTeamName()) ? team.name.eq(normalized.getTeamName()) : null,
+                            normalized.getAgeGoe() != null ? member.age.goe(normalized.getAgeGoe()) : null,
+                            normalized.getAgeLoe() != null ? member.age.loe(normalized.getAgeLoe()) : null,
+                            member.username.containsIgnoreCase(normalized.getUsernameContains())
+                    )
+                    .fetch();
+        }
+        return fetch(normalized.getUsername(), normalized.getTeamName(),
+                normalized.getAgeGoe(), normalized.getAgeLoe());
+    }
+
+    /**
+     * null 이거나 빈 문자열인 조건은 무시
+     */
+    public List<MemberTeamDto> fetch(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        int shape = 0;
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        if (hasText(username)) {
+            shape |= USERNAME;
+            params.put(USERNAME_PARAM, username);
+        }
+        if (hasText(teamName)) {
+            shape |= TEAM_NAME;
+            params.put(TEAM_NAME_PARAM, teamName);
+        }
+        if (ageGoe != null) {
+            shape |= AGE_GOE;
+            params.put(AGE_GOE_PARAM, ageGoe);
+        }
+        if (ageLoe != null) {
+            shape |= AGE_LOE;
+            params.put(AGE_LOE_PARAM, ageLoe);
+        }
+        PreparedJPQL<MemberTeamDto> prepared = prepared(shape);
+        if (metrics == null) {
+            return prepared.fetch(em, params);
+        }
+
+        QueryShape queryShape = metrics.shape(prepared.getJpql());
+        long start = System.nanoTime();
+        List<?> rows = prepared.createQuery(em, params).getResultList();
+        long executed = System.nanoTime();
+        List<MemberTeamDto> result = prepared.map(rows);
+        metrics.recordExecution(queryShape, method, executed - start, rows.size());
+        metrics.recordMapping(queryShape, method, System.nanoTime() - executed);
+        return result;
+    }
+
+    PreparedJPQL<MemberTeamDto> prepared(int shape) {
+        PreparedJPQL<MemberTeamDto> prepared = shapes.get(shape);
+        if (prepared == null) {
+            // 동시에 여러번 만들어질 수 있지만 결과가 같으므로 문제없음
+            prepared = PreparedJPQL.of(em, searchQuery(shape));
+            shapes.set(shape, prepared);
+        }
+        return prepared;
+    }
+
+    private JPAQuery<MemberTeamDto> searchQuery(int shape) {
+        return new JPAQuery<Void>(em)
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName"))
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(TEAM_NAME_PARAM) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null
+                );
+    }
+}
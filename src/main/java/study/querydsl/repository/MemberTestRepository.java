@@ -4,13 +4,21 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SearchShape;
+import study.querydsl.repository.support.PaginationExecution;
+import study.querydsl.repository.support.PaginationStrategy;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -20,6 +28,7 @@ import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberTestRepository extends Querydsl4RepositorySupport {
     public MemberTestRepository() {
         super(Member.class);
@@ -60,6 +69,50 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ));
     }
 
+    /**
+     * count 쿼리 없는 페이징 (다음 페이지 여부만)
+     */
+    public Slice<Member> applySlice(MemberSearchCondition cond, Pageable pageable) {
+        return applySlice(pageable,
+                query -> query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                        ));
+    }
+
+    /**
+     * 조건별 예상 건수에 따라 count 먼저 / 컨텐츠 먼저 / 최대 건수까지만 count 중 골라서 실행
+     */
+    public Page<Member> applyAdaptivePagination(MemberSearchCondition cond, Pageable pageable) {
+        return applyAdaptivePagination("MemberTestRepository.applyAdaptivePagination",
+                SearchShape.keyOf(cond.normalized()), pageable,
+                query -> query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                        ));
+    }
+
+    /**
+     * 페이지의 member.team 을 IN 쿼리 한 번으로 함께 초기화
+     * (default_batch_fetch_size 설정이 없어도 쿼리 2번 + count)
+     */
+    public Page<Member> applyPaginationWithTeam(MemberSearchCondition cond, Pageable pageable) {
+        Page<Member> page = applyPagination(cond, pageable);
+        prefetch(page.getContent(), Member::getTeam, team);
+        return page;
+    }
+
+    /**
+     * team.members 를 fetch join 으로 한 번에 초기화
+     */
+    public List<Team> findTeamsWithMembers(List<Team> teams) {
+        return prefetchCollection(teams, team, team.members);
+    }
+
     public Page<Member> applyPagination2(MemberSearchCondition cond, Pageable pageable) {
         return applyPagination(pageable,
                 query -> query.selectFrom(member)
@@ -77,6 +130,51 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ));
     }
 
+    /**
+     * id 만 먼저 페이징한 뒤 본 데이터를 조회하는 방식
+     */
+    public Page<Member> applyPaginationDeferred(MemberSearchCondition cond, Pageable pageable) {
+        return applyPagination(pageable, PaginationStrategy.DEFERRED_JOIN,
+                query -> query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                        ));
+    }
+
+    /**
+     * DTO 프로젝션도 id 를 같이 조회해서 순서를 복원한다.
+     */
+    public Page<MemberTeamDto> applyPaginationDeferredDto(MemberSearchCondition cond, Pageable pageable) {
+        return applyPagination(pageable, PaginationStrategy.DEFERRED_JOIN,
+                query -> query.select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                        ));
+    }
+
+    /**
+     * count 쿼리를 컨텐츠 쿼리와 동시에 별도 커넥션에서 실행
+     */
+    public Page<Member> applyPaginationParallel(MemberSearchCondition cond, Pageable pageable) {
+        return applyPagination(pageable, PaginationExecution.PARALLEL,
+                query -> query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageBetween(cond.getAgeLoe(), cond.getAgeGoe())
+                        ));
+    }
+
     private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
         return ageLoe != null && ageGoe != null ?
                 ageLoe(ageLoe).and(ageGoe(ageGoe)) :
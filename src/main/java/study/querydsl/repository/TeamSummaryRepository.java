@@ -0,0 +1,7 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydsl.entity.TeamSummary;
+
+public interface TeamSummaryRepository extends JpaRepository<TeamSummary, Long> {
+}
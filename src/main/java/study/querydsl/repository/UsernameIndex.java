@@ -0,0 +1,302 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * member.username 부분 일치 검색용 메모리 인덱스 (대소문자 무시)
+ *
+ * like '%x%' 는 인덱스를 못 타서 전체 scan 이므로
+ * - 이름 -> id 정렬 맵으로 정확히 일치, 앞부분 일치를 찾고
+ * - 3글자 조각(trigram) -> id 맵으로 중간 일치 후보를 좁힌 뒤 실제 이름으로 확인한다.
+ * 결과는 정확히 일치 > 앞부분 일치 > 중간 일치(앞쪽에서 일치할수록 먼저) 순, 같으면 이름, id 순이다.
+ *
+ * UsernameIndexListener 가 커밋된 변경만 반영하고, 처음 조회할 때와 invalidate 이후에는 DB 에서 다시 만든다.
+ * (MemberStatisticsService 와 같은 방식)
+ * - 인덱스에 버전을 두고 invalidate 는 버전만 올리므로, 다시 만드는 도중에 invalidate 되면 그 결과는 바로 다시 만든다.
+ * - 다시 만드는 도중에 커밋된 엔티티 변경은 누락될 수 있으므로 주기적으로(reconcile) 다시 만들어서 교체한다.
+ * 그 사이에는 인덱스에 없는 이름이 검색 결과에서 빠질 수 있다. (결과 id 는 DB 조회 조건으로 쓰므로 없는 회원이 나오지는 않는다)
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+    private static final int GRAM = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnly;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Entries entries;
+
+    public UsernameIndex(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        // 호출한 트랜잭션의 커밋되지 않은 데이터가 인덱스에 들어가지 않도록
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * keyword 를 포함하는 회원 id 를 순위대로 최대 limit 개
+     */
+    public List<Long> search(String keyword, int limit) {
+        if (!hasText(keyword) || limit <= 0) {
+            return List.of();
+        }
+        return load().search(normalize(keyword), limit);
+    }
+
+    /**
+     * keyword 를 포함하는 회원 id 전체 (순서 없음). max 개를 넘으면 null
+     * 너무 많이 일치하는 짧은 검색어는 in 조건보다 like 가 나으므로 호출하는 쪽에서 대신 사용한다.
+     */
+    public Set<Long> matchingIds(String keyword, int max) {
+        if (!hasText(keyword)) {
+            return null;
+        }
+        return load().matching(normalize(keyword), max);
+    }
+
+    void memberSaved(Long id, String username) {
+        Entries current = entries;
+        if (current != null && id != null) {
+            current.put(id, username == null ? null : normalize(username));
+        }
+    }
+
+    void memberDeleted(Long id) {
+        Entries current = entries;
+        if (current != null && id != null) {
+            current.remove(id);
+        }
+    }
+
+    /**
+     * 다음 조회 때 DB 에서 다시 만든다.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 다시 만들어서 교체한다. 조회하는 쪽은 교체될 때까지 이전 인덱스를 본다.
+     * 한 번도 조회하지 않았으면 아무것도 하지 않는다.
+     */
+    @Scheduled(fixedDelayString = "${member.username-index.reconcile-interval:10m}",
+            initialDelayString = "${member.username-index.reconcile-interval:10m}")
+    public void reconcile() {
+        if (entries != null) {
+            refresh();
+        }
+    }
+
+    private Entries load() {
+        Entries current = entries;
+        if (current != null && current.version == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = entries;
+            if (current != null && current.version == version.get()) {
+                return current;
+            }
+            return refresh();
+        }
+    }
+
+    // 다시 만들기 전에 읽은 버전을 붙여두므로 도중에 invalidate 되면 다음 조회 때 다시 만든다
+    private synchronized Entries refresh() {
+        long current = version.get();
+        Entries result = readOnly.execute(status -> rebuild(current));
+        entries = result;
+        return result;
+    }
+
+    private Entries rebuild(long version) {
+        long start = System.nanoTime();
+        Entries result = new Entries(version);
+        try (Stream<Tuple> rows = queryFactory
+                .select(member.id, member.username)
+                .from(member)
+                .where(member.username.isNotNull())
+                .stream()) {
+            rows.forEach(row -> result.put(row.get(member.id), normalize(row.get(member.username))));
+        }
+        log.info("username index rebuilt: {} members in {}ms",
+                result.names.size(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entries {
+        private final long version;
+        private final ConcurrentMap<Long, String> names = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<String, Set<Long>> byName = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<String, Set<Long>> grams = new ConcurrentHashMap<>();
+
+        Entries(long version) {
+            this.version = version;
+        }
+
+        // 쓰기만 직렬화하고 조회는 락 없이 한다. 조회 중 바뀐 항목은 names 로 다시 확인해서 거른다.
+        synchronized void put(Long id, String name) {
+            remove(id);
+            if (name == null) {
+                return;
+            }
+            names.put(id, name);
+            byName.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(id);
+            for (String gram : grams(name)) {
+                grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        synchronized void remove(Long id) {
+            String name = names.remove(id);
+            if (name == null) {
+                return;
+            }
+            removeFrom(byName, name, id);
+            for (String gram : grams(name)) {
+                removeFrom(grams, gram, id);
+            }
+        }
+
+        List<Long> search(String keyword, int limit) {
+            Set<Long> result = new LinkedHashSet<>();
+            // 1. 정확히 일치, 2. 앞부분 일치 (이름순이므로 정확히 일치하는 이름이 가장 먼저 나온다)
+            for (Set<Long> ids : prefixMatches(keyword).values()) {
+                for (Long id : sorted(ids)) {
+                    if (position(id, keyword) == 0) {
+                        result.add(id);
+                    }
+                }
+                if (result.size() >= limit) {
+                    return new ArrayList<>(result).subList(0, limit);
+                }
+            }
+
+            // 3. 중간 일치 : 일치 위치, 이름, id 순으로 limit 개만 남긴다
+            Comparator<Long> rank = Comparator.<Long>comparingInt(id -> position(id, keyword))
+                    .thenComparing(names::get, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(Comparator.naturalOrder());
+            int remaining = limit - result.size();
+            PriorityQueue<Long> top = new PriorityQueue<>(rank.reversed());
+            for (Long id : candidates(keyword)) {
+                if (result.contains(id) || position(id, keyword) <= 0) {
+                    continue;
+                }
+                top.add(id);
+                if (top.size() > remaining) {
+                    top.poll();
+                }
+            }
+            List<Long> inner = new ArrayList<>(top);
+            inner.sort(rank);
+            result.addAll(inner);
+            return new ArrayList<>(result);
+        }
+
+        Set<Long> matching(String keyword, int max) {
+            Set<Long> result = new HashSet<>();
+            for (Long id : candidates(keyword)) {
+                if (position(id, keyword) >= 0) {
+                    result.add(id);
+                    if (result.size() > max) {
+                        return null;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private ConcurrentNavigableMap<String, Set<Long>> prefixMatches(String keyword) {
+            return byName.subMap(keyword, true, keyword + Character.MAX_VALUE, false);
+        }
+
+        /**
+         * 검색어의 모든 trigram 을 가진 id (가장 작은 목록에서 시작)
+         * 검색어가 3글자보다 짧으면 trigram 을 쓸 수 없으므로 이름 전체가 후보
+         */
+        private Iterable<Long> candidates(String keyword) {
+            if (keyword.length() < GRAM) {
+                return names.keySet();
+            }
+            List<Set<Long>> postings = new ArrayList<>();
+            for (String gram : grams(keyword)) {
+                Set<Long> posting = grams.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Long> smallest = postings.get(0);
+            List<Set<Long>> others = postings.subList(1, postings.size());
+            List<Long> result = new ArrayList<>();
+            for (Long id : smallest) {
+                if (others.stream().allMatch(posting -> posting.contains(id))) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        // trigram 은 순서를 보장하지 않으므로 실제 이름으로 확인. 없으면 -1
+        private int position(Long id, String keyword) {
+            String name = names.get(id);
+            return name == null ? -1 : name.indexOf(keyword);
+        }
+
+        private static Set<String> grams(String name) {
+            if (name.length() < GRAM) {
+                return Set.of();
+            }
+            Set<String> result = new HashSet<>();
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                result.add(name.substring(i, i + GRAM));
+            }
+            return result;
+        }
+
+        private static List<Long> sorted(Set<Long> ids) {
+            List<Long> result = new ArrayList<>(ids);
+            Collections.sort(result);
+            return result;
+        }
+
+        private static void removeFrom(ConcurrentMap<String, Set<Long>> map, String key, Long id) {
+            map.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
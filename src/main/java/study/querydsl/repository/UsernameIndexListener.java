@@ -0,0 +1,126 @@
+package study.querydsl.repository;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.HibernateEventListenerConfig.EventListenerRegistrar;
+import study.querydsl.config.SessionBuffers;
+import study.querydsl.entity.Member;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static study.querydsl.entity.support.MemberState.username;
+
+/**
+ * 커밋된 Member 변경을 UsernameIndex 에 반영한다. (MemberStatisticsListener 와 같은 방식)
+ *
+ * - em.persist, 변경감지, em.remove -> 트랜잭션별로 (id, username) 만 모아두고 커밋된 뒤 반영 (SessionBuffers)
+ *   한 트랜잭션에서 MAX_CHANGES 건을 넘게 바뀌면 모아두지 않고 커밋 후 인덱스를 invalidate
+ * - 엔티티 이벤트가 없는 벌크 update/delete -> 트랜잭션 종료 후 인덱스를 invalidate (MemberChangeHook)
+ */
+@Component
+public class UsernameIndexListener implements EventListenerRegistrar, MemberChangeHook.Listener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    static final int MAX_CHANGES = 10_000;
+
+    private final ObjectProvider<UsernameIndex> indexProvider;
+    private final SessionBuffers<Changes> changes;
+
+    public UsernameIndexListener(ObjectProvider<UsernameIndex> indexProvider) {
+        this.indexProvider = indexProvider;
+        this.changes = SessionBuffers.afterCompletion(Changes::new, (sessionChanges, committed) -> {
+            if (committed) {
+                sessionChanges.applyTo(index());
+            }
+        });
+    }
+
+    @Override
+    public void register(EventListenerRegistry registry) {
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes.get(event.getSession()).put((Long) event.getId(), username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes.get(event.getSession()).put((Long) event.getId(), username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes.get(event.getSession()).put((Long) event.getId(), null);
+        }
+    }
+
+    @Override
+    public boolean accepts(MemberChangeHook.Table table, MemberChangeHook.Kind kind) {
+        return table == MemberChangeHook.Table.MEMBER && kind == MemberChangeHook.Kind.BULK;
+    }
+
+    @Override
+    public void afterCompletion(boolean committed) {
+        index().invalidate();
+    }
+
+    private UsernameIndex index() {
+        return indexProvider.getObject();
+    }
+
+    /**
+     * 한 트랜잭션 동안 바뀐 id -> username (삭제는 null)
+     */
+    private static class Changes {
+        private final Map<Long, String> usernames = new LinkedHashMap<>();
+        private boolean overflow;
+
+        void put(Long id, String username) {
+            if (overflow) {
+                return;
+            }
+            usernames.put(id, username);
+            if (usernames.size() > MAX_CHANGES) {
+                overflow = true;
+                usernames.clear();
+            }
+        }
+
+        void applyTo(UsernameIndex index) {
+            if (overflow) {
+                index.invalidate();
+                return;
+            }
+            usernames.forEach((id, username) -> {
+                if (username == null) {
+                    index.memberDeleted(id);
+                } else {
+                    index.memberSaved(id, username);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 호출하는 쪽이 넘긴 이름(보통 메소드 이름)과 조건 조합(shape)별로 지금까지 본 total 의 이동평균(EWMA)을 보고
+ * 페이징 실행 순서를 고른다. 같은 메소드라도 조건에 따라 결과 건수가 크게 다르기 때문
+ * (매번 JPQL 을 만들어서 키로 쓰지 않도록 쿼리 자체는 보지 않고 호출하는 쪽이 만든 shape 를 쓴다. SearchShape.keyOf)
+ *
+ * - COUNT_FIRST : 결과가 거의 없거나 요청한 offset 이 예상 total 보다 뒤인 경우
+ *                 count 를 먼저 실행하고 0 건이거나 offset 이 total 이상이면 컨텐츠 쿼리를 생략한다.
+ * - CONTENT_FIRST : 보통의 경우. 컨텐츠를 먼저 조회하고 PageableExecutionUtils 로 필요할 때만 count
+ * - CAPPED_COUNT : 예상 total 이 countCap 보다 많은 경우. 컨텐츠 조회 후 최대 cap + 1 건까지만 센다.
+ *                  total 이 cap + 1 이면 "cap 건 초과" 라는 의미 (searchPageEstimated 와 같음)
+ * 처음 보는 이름, shape 는 CONTENT_FIRST 로 실행한다.
+ * 선택한 방식은 querydsl.pagination.strategy 카운터(name, strategy 태그)로 남긴다.
+ */
+@Component
+public class AdaptivePaginationExecutor {
+    static final int MAX_KEYS = 1000;
+    // 최근 값의 가중치
+    private static final double ALPHA = 0.2;
+
+    public enum Strategy {
+        COUNT_FIRST, CONTENT_FIRST, CAPPED_COUNT
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final MeterRegistry meterRegistry;
+    private final long countCap;
+    private final ConcurrentMap<String, TotalEstimate> estimates = new ConcurrentHashMap<>();
+
+    public AdaptivePaginationExecutor(JPAQueryFactory queryFactory, MeterRegistry meterRegistry,
+                                      @Value("${querydsl.adaptive-pagination.count-cap:10000}") long countCap) {
+        this.queryFactory = queryFactory;
+        this.meterRegistry = meterRegistry;
+        this.countCap = countCap;
+    }
+
+    public <T> Page<T> execute(String name, String shape, Pageable pageable, JPAQuery<T> contentQuery,
+                               Expression<?> key, LongSupplier count) {
+        return execute(name, shape, pageable, contentQuery, key, null, count);
+    }
+
+    /**
+     * @param name         메트릭 태그 (보통 메소드 이름)
+     * @param shape        name 과 함께 추정치를 구분하는 조건 조합 (없으면 null)
+     * @param contentQuery 정렬까지만 적용된 컨텐츠 쿼리 (offset, limit 은 여기서 적용)
+     * @param key          CAPPED_COUNT 에서 셀 때 사용할 가벼운 식 (보통 id).
+     *                     null 이면 CAPPED_COUNT 를 쓰지 않는다. (total 이 항상 정확해야 할 때)
+     * @param deferredKey  컨텐츠를 deferred join 으로 조회할 때 먼저 페이징할 key (보통 id, DeferredJoin)
+     *                     null 이면 컨텐츠 쿼리에 offset, limit 을 그대로 적용한다.
+     * @param count        정확한 total
+     */
+    public <T> Page<T> execute(String name, String shape, Pageable pageable, JPAQuery<T> contentQuery,
+                               Expression<?> key, Expression<?> deferredKey, LongSupplier count) {
+        TotalEstimate estimate = estimate(shape == null ? name : name + " [" + shape + "]");
+        Strategy strategy = choose(estimate, pageable, key != null);
+        meterRegistry.counter("querydsl.pagination.strategy",
+                "name", name, "strategy", strategy.name().toLowerCase()).increment();
+
+        Page<T> page;
+        switch (strategy) {
+            case COUNT_FIRST:
+                long total = count.getAsLong();
+                List<T> content = total == 0 || (pageable.isPaged() && pageable.getOffset() >= total) ?
+                        Collections.emptyList() :
+                        fetchContent(pageable, contentQuery, deferredKey);
+                page = new PageImpl<>(content, pageable, total);
+                break;
+            case CAPPED_COUNT:
+                long cap = pageable.isPaged() ?
+                        Math.max(countCap, pageable.getOffset() + pageable.getPageSize()) : countCap;
+                page = PageableExecutionUtils.getPage(fetchContent(pageable, contentQuery, deferredKey), pageable,
+                        () -> CountQueries.fetchCapped(queryFactory, contentQuery, key, cap));
+                break;
+            case CONTENT_FIRST:
+            default:
+                page = PageableExecutionUtils.getPage(fetchContent(pageable, contentQuery, deferredKey), pageable, count);
+                break;
+        }
+        if (estimate != null) {
+            estimate.observe(page.getTotalElements());
+        }
+        return page;
+    }
+
+    private Strategy choose(TotalEstimate estimate, Pageable pageable, boolean cappable) {
+        if (estimate == null || !estimate.isKnown()) {
+            return Strategy.CONTENT_FIRST;
+        }
+        double total = estimate.get();
+        if (total < 1 || (pageable.isPaged() && pageable.getOffset() >= total)) {
+            return Strategy.COUNT_FIRST;
+        }
+        if (cappable && total > countCap) {
+            return Strategy.CAPPED_COUNT;
+        }
+        return Strategy.CONTENT_FIRST;
+    }
+
+    private <T> List<T> fetchContent(Pageable pageable, JPAQuery<T> contentQuery, Expression<?> deferredKey) {
+        if (deferredKey != null) {
+            return DeferredJoin.fetch(queryFactory, contentQuery, deferredKey, pageable);
+        }
+        JPAQuery<T> query = contentQuery.clone();
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return query.fetch();
+    }
+
+    // 테스트에서 이전 추정치를 지울 때 사용
+    void clear() {
+        estimates.clear();
+    }
+
+    // 키가 너무 많으면 더이상 추적하지 않는다 (null -> 항상 CONTENT_FIRST)
+    private TotalEstimate estimate(String estimateKey) {
+        TotalEstimate estimate = estimates.get(estimateKey);
+        if (estimate != null || estimates.size() >= MAX_KEYS) {
+            return estimate;
+        }
+        return estimates.computeIfAbsent(estimateKey, key -> new TotalEstimate());
+    }
+
+    /**
+     * total 의 지수 이동 평균. 동시에 갱신되면 일부 값이 빠질 수 있지만 추정치이므로 무시한다.
+     */
+    private static class TotalEstimate {
+        private volatile double value = Double.NaN;
+
+        boolean isKnown() {
+            return !Double.isNaN(value);
+        }
+
+        double get() {
+            return value;
+        }
+
+        void observe(long total) {
+            double current = value;
+            value = Double.isNaN(current) ? total : current + ALPHA * (total - current);
+        }
+    }
+}
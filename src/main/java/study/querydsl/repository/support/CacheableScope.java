@@ -0,0 +1,20 @@
+package study.querydsl.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 조회 결과 캐시를 써도 되는 상황인지 판단
+ *
+ * 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 자신의 변경을 봐야하므로 캐시를 사용하지 않는다.
+ * (트랜잭션이 없거나 readOnly 트랜잭션일 때만 캐시 사용)
+ */
+public final class CacheableScope {
+
+    private CacheableScope() {
+    }
+
+    public static boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,265 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리로부터 count 쿼리를 만들어주는 유틸
+ *
+ * deprecated 된 fetchCount 는 select 절만 count 로 바꾸기 때문에
+ * order by, 불필요한 left join 까지 그대로 count 쿼리에 포함된다.
+ * 여기서는 아래 규칙으로 count 에 필요한 부분만 남긴다.
+ * - select 절, order by, offset/limit 제거
+ * - where 절(및 남아있는 다른 join)에서 참조하지 않는 to-one left join 제거
+ *   (on 조건이 없는 to-one 연관관계 left join 은 row 수에 영향을 주지 않으므로 제거해도 결과가 같다)
+ * - inner join, to-many join, on 조건이 있는 join, 엔티티 조인(leftJoin(team).on(...))은 row 수에 영향을 주므로 유지
+ * - fetch join 은 count 쿼리에서 의미가 없으므로 일반 join 으로 유지
+ *   (to-many join 이 남으면 count 는 중복된 row 를 센다. 컨텐츠 쿼리에 distinct 를 걸면 count(distinct) 로 센다)
+ *
+ * group by 가 있는 쿼리는 row 수의 의미가 달라지므로 지원하지 않는다. count 쿼리를 직접 작성하자.
+ */
+public final class CountQueries {
+
+    private CountQueries() {
+    }
+
+    public static JPAQuery<Long> derive(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        Expression<?> root = source.getJoins().isEmpty() ? null : source.getJoins().get(0).getTarget();
+        Assert.notNull(root, "from 절이 없는 쿼리입니다.");
+
+        Ops.AggOps countOp = source.isDistinct() ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG;
+        return prune(queryFactory.select(Expressions.numberOperation(Long.class, countOp, root)), source);
+    }
+
+    /**
+     * 최대 cap + 1 건까지만 세는 count
+     * 결과가 cap 이하면 정확한 total 이고, cap + 1 이면 "cap 건 초과" 라는 의미다.
+     * key 는 row 를 식별할 수 있는 가벼운 식(보통 id)을 넘긴다.
+     */
+    public static long fetchCapped(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery,
+                                   Expression<?> key, long cap) {
+        QueryMetadata source = contentQuery.getMetadata();
+        JPAQuery<?> keyQuery = prune(queryFactory.select(key), source);
+        if (source.isDistinct()) {
+            keyQuery.distinct();
+        }
+        return keyQuery.limit(cap + 1)
+                .fetch()
+                .size();
+    }
+
+    /**
+     * 페이징할 key(보통 id)만 조회하는 쿼리 (deferred join 1단계)
+     * 컨텐츠 쿼리의 order by 는 유지하고, where, order by 에서 쓰지 않는 join 은 count 와 같은 규칙으로 제거한다.
+     * fetch join 은 일반 join 으로 남는다.
+     *
+     * to-many join 이 남으면 같은 key 가 여러 row 로 나오므로 key 로 group by 해서 한 번씩만 조회한다.
+     * (distinct 는 select 절에 없는 컬럼으로 정렬할 수 없으므로 정렬은 asc 면 min, desc 면 max 로 바꾼다)
+     */
+    public static <K> JPAQuery<K> deriveKeys(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery,
+                                             Expression<K> key) {
+        QueryMetadata source = contentQuery.getMetadata();
+        JPAQuery<K> keyQuery = queryFactory.select(key);
+        for (OrderSpecifier<?> order : source.getOrderBy()) {
+            keyQuery.orderBy(order);
+        }
+        prune(keyQuery, source);
+        if (keyQuery.getMetadata().getJoins().stream().anyMatch(CountQueries::isCollectionJoin)) {
+            groupByKey(keyQuery, key);
+        } else if (source.isDistinct()) {
+            keyQuery.distinct();
+        }
+        return keyQuery;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void groupByKey(JPAQuery<?> keyQuery, Expression<?> key) {
+        QueryMetadata metadata = keyQuery.getMetadata();
+        List<OrderSpecifier<?>> orders = new ArrayList<>(metadata.getOrderBy());
+        metadata.clearOrderBy();
+        metadata.addGroupBy(key);
+        for (OrderSpecifier<?> order : orders) {
+            Expression<?> target = order.getTarget();
+            if (!target.equals(key)) {
+                target = ExpressionUtils.operation(target.getType(),
+                        order.isAscending() ? Ops.AggOps.MIN_AGG : Ops.AggOps.MAX_AGG, target);
+            }
+            metadata.addOrderBy(new OrderSpecifier(order.getOrder(), target, order.getNullHandling()));
+        }
+    }
+
+    private static boolean isCollectionJoin(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            target = ((Operation<?>) target).getArg(0);
+        }
+        return target instanceof CollectionExpression;
+    }
+
+    private static <T> JPAQuery<T> prune(JPAQuery<T> target, QueryMetadata source) {
+        Assert.isTrue(source.getGroupBy().isEmpty(), "group by 쿼리는 count 쿼리를 직접 작성해야 합니다.");
+
+        List<JoinExpression> joins = source.getJoins();
+        Assert.notEmpty(joins, "from 절이 없는 쿼리입니다.");
+
+        Set<PathMetadata> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        collectRoots(target.getMetadata().getProjection(), referenced);
+        for (OrderSpecifier<?> order : target.getMetadata().getOrderBy()) {
+            collectRoots(order.getTarget(), referenced);
+        }
+
+        // 남겨둔 join 이 다른 alias 를 참조할 수 있으므로 더이상 변화가 없을때까지 반복
+        boolean[] keep = new boolean[joins.size()];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < joins.size(); i++) {
+                JoinExpression join = joins.get(i);
+                if (keep[i] || (i > 0 && isRemovable(join, referenced))) {
+                    continue;
+                }
+                keep[i] = true;
+                changed = true;
+                collectRoots(join.getTarget(), referenced);
+                collectRoots(join.getCondition(), referenced);
+            }
+        }
+
+        QueryMetadata metadata = target.getMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            metadata.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+        return target;
+    }
+
+    /**
+     * on 조건이 없는 연관관계 경로(member.team 처럼 부모가 있는 path)의 to-one left join 만 제거할 수 있다.
+     * leftJoin(team).on(...) 같은 엔티티 조인은 on 조건에 따라 row 가 여러 건 붙을 수 있으므로 유지한다.
+     */
+    private static boolean isRemovable(JoinExpression join, Set<PathMetadata> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN || join.getCondition() != null) {
+            return false;
+        }
+        Expression<?> target = join.getTarget();
+        Expression<?> association = target;
+        Expression<?> alias = target;
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            association = ((Operation<?>) target).getArg(0);
+            alias = ((Operation<?>) target).getArg(1);
+        }
+        if (!(association instanceof Path) || association instanceof CollectionExpression
+                || ((Path<?>) association).getMetadata().getParent() == null || !(alias instanceof Path)) {
+            return false;
+        }
+        return !referenced.contains(((Path<?>) alias).getMetadata());
+    }
+
+    private static void collectRoots(Expression<?> expr, Set<PathMetadata> roots) {
+        if (expr != null) {
+            expr.accept(RootPathCollector.INSTANCE, roots);
+        }
+    }
+
+    /**
+     * 식에서 참조하는 모든 alias(root path) 를 수집
+     */
+    private enum RootPathCollector implements Visitor<Void, Set<PathMetadata>> {
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<PathMetadata> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<PathMetadata> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collectRoots(arg, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<PathMetadata> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collectRoots(arg, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<PathMetadata> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<PathMetadata> roots) {
+            roots.add(expr.getRoot().getMetadata());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<PathMetadata> roots) {
+            // 상관 서브쿼리는 바깥 alias 를 참조할 수 있다
+            QueryMetadata metadata = expr.getMetadata();
+            collectRoots(metadata.getProjection(), roots);
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<PathMetadata> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * deferred join 으로 한 페이지의 컨텐츠를 조회한다. (PaginationStrategy.DEFERRED_JOIN)
+ * 1. 정렬, offset, limit 을 적용해서 key(보통 id)만 먼저 조회하고 (CountQueries.deriveKeys)
+ * 2. key in (...) 으로 컨텐츠를 key 와 함께 조회한 뒤 1의 순서대로 재정렬한다. (DTO 프로젝션도 가능)
+ */
+public final class DeferredJoin {
+
+    private DeferredJoin() {
+    }
+
+    /**
+     * @param contentQuery 정렬까지만 적용된 컨텐츠 쿼리. 변경하지 않는다.
+     * @param key          컨텐츠 row 마다 유일한 값 (보통 id)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> List<T> fetch(JPAQueryFactory queryFactory, JPAQuery<T> contentQuery,
+                                    Expression<?> key, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return contentQuery.clone().fetch();
+        }
+        List<?> keys = CountQueries.deriveKeys(queryFactory, contentQuery, key)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        JPAQuery<T> rowQuery = contentQuery.clone();
+        // 순서는 1단계 결과로 복원하므로 정렬은 필요없다
+        rowQuery.getMetadata().clearOrderBy();
+        rowQuery.where(ExpressionUtils.in((Expression) key, (Collection) keys));
+        Expression<?> projection = rowQuery.getMetadata().getProjection();
+        List<Tuple> rows = rowQuery.select(key, projection).fetch();
+
+        Map<Object, T> rowsByKey = new HashMap<>();
+        for (Tuple row : rows) {
+            rowsByKey.put(row.get(key), (T) row.get(projection));
+        }
+        return keys.stream()
+                .map(rowsByKey::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
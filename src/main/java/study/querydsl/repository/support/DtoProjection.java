@@ -0,0 +1,112 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 리플렉션 없이 row 를 DTO 로 만드는 FactoryExpression
+ *
+ * Projections.bean / fields 는 row 마다 리플렉션으로 setter, 필드에 접근하고
+ * Projections.constructor, @QueryProjection 도 row 마다 Constructor.newInstance 를 호출한다.
+ * - of : 직접 작성한 mapper 람다로 생성 (ex. args -> new UserDto((String) args[0], (Integer) args[1]))
+ * - constructor : 생성자를 처음 한 번만 찾아서 MethodHandle 로 호출
+ *
+ * 생성 비용이 있으므로 static final 로 만들어두고 재사용하자.
+ */
+public class DtoProjection<T> extends FactoryExpressionBase<T> {
+    private final List<Expression<?>> args;
+    private final Function<Object[], T> mapper;
+
+    private DtoProjection(Class<? extends T> type, Function<Object[], T> mapper, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        this.mapper = mapper;
+    }
+
+    public static <T> DtoProjection<T> of(Class<? extends T> type, Function<Object[], T> mapper,
+                                          Expression<?>... args) {
+        return new DtoProjection<>(type, mapper, args);
+    }
+
+    /**
+     * args 타입으로 호출할 수 있는 public 생성자를 사용 (primitive 파라미터는 unboxing)
+     */
+    public static <T> DtoProjection<T> constructor(Class<? extends T> type, Expression<?>... args) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup()
+                    .unreflectConstructor(findConstructor(type, args))
+                    .asSpreader(Object[].class, args.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new ExpressionException(e.getMessage(), e);
+        }
+        return new DtoProjection<>(type, values -> newInstance(handle, values), args);
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, Expression<?>... args) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != args.length) {
+                continue;
+            }
+            boolean matched = true;
+            for (int i = 0; i < args.length && matched; i++) {
+                matched = ClassUtils.isAssignable(parameterTypes[i], args[i].getType());
+            }
+            if (matched) {
+                return constructor;
+            }
+        }
+        throw new IllegalArgumentException("No constructor found for " + type.getName() + " with " + args.length + " args");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newInstance(MethodHandle handle, Object[] values) {
+        try {
+            return (T) (Object) handle.invokeExact(values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExpressionException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... values) {
+        return mapper.apply(values);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DtoProjection)) {
+            return false;
+        }
+        FactoryExpression<?> other = (FactoryExpression<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.getArgs());
+    }
+}
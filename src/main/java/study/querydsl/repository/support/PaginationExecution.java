@@ -0,0 +1,17 @@
+package study.querydsl.repository.support;
+
+/**
+ * Querydsl4RepositorySupport.applyPagination 의 컨텐츠 / count 쿼리 실행 방식
+ */
+public enum PaginationExecution {
+    /**
+     * 컨텐츠 조회 후 필요할 때만 count 조회 (같은 커넥션에서 순서대로)
+     */
+    SEQUENTIAL,
+    /**
+     * 컨텐츠 조회와 동시에 별도 readOnly 커넥션에서 count 조회 (ParallelCountExecutor)
+     * PageableExecutionUtils 가 count 가 필요없다고 판단하면 count 결과는 버린다.
+     * 호출한 쪽 트랜잭션의 커밋되지 않은 변경은 count 에 반영되지 않으므로 쓰기 트랜잭션 안에서는 쓰지 말자.
+     */
+    PARALLEL
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+/**
+ * Querydsl4RepositorySupport.applyPagination 의 컨텐츠 조회 방식
+ */
+public enum PaginationStrategy {
+    /**
+     * 컨텐츠 쿼리에 offset, limit 을 그대로 적용
+     */
+    OFFSET,
+    /**
+     * 1. 조건, 정렬, offset, limit 을 적용해서 id 만 먼저 조회하고 (커버링 인덱스를 탈 여지가 생김)
+     *    where, 정렬에 필요없는 to-one left join 은 CountQueries 규칙으로 제거하고 fetch join 은 일반 join 으로 바꾼다.
+     * 2. id in (...) 으로 실제 컨텐츠를 id 와 함께 조회한 뒤 1의 순서대로 재정렬 (DTO 프로젝션도 가능)
+     * offset 이 클수록 버려지는 row 가 가벼워지므로 유리하다.
+     */
+    DEFERRED_JOIN
+}
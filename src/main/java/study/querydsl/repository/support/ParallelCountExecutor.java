@@ -0,0 +1,141 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 count 쿼리를 별도 쓰레드, 별도 readOnly 트랜잭션에서 실행
+ *
+ * 별도 트랜잭션이므로 공유 EntityManager 프록시가 해당 쓰레드에서는 새 EntityManager, 새 커넥션에 바인딩된다.
+ * 대신 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경은 count 에 보이지 않는다.
+ *
+ * 호출한 쪽이 커넥션을 하나 잡은 채로 count 용 커넥션을 하나 더 기다리므로
+ * 쓰레드 수는 커넥션 풀 크기에서 동시에 페이징하는 요청 수를 뺀 것보다 작아야 한다. (풀 크기 이상은 시작할 때 거부)
+ * - 대기열 없이 쓰레드가 모두 사용 중이면 count 는 호출한 쪽 트랜잭션(같은 커넥션)에서 순차로 실행한다.
+ * - count 가 필요할 때 아직 시작하지 않았으면 호출한 쪽에서 직접 실행한다.
+ * - 필요 없어지면 시작하지 않은 count 는 버리고, 실행 중인 count 는 Session.cancelQuery 로 취소한다.
+ * 스프링 MVC 비동기 처리 등에서 쓰는 기본 TaskExecutor 를 대체하지 않도록 Executor 빈으로 노출하지 않는다.
+ */
+@Slf4j
+@Component
+public class ParallelCountExecutor implements DisposableBean {
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager em;
+
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager, EntityManager em,
+                                 @Value("${querydsl.parallel-count.threads:2}") int threads,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        Assert.isTrue(threads > 0 && threads < poolSize,
+                "querydsl.parallel-count.threads must be between 1 and the connection pool size - 1");
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("parallel-count-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.em = em;
+    }
+
+    /**
+     * count 를 별도 쓰레드에서 시작한다. 쓰레드가 모두 사용 중이면 시작하지 않고 join 할 때 호출한 쪽에서 실행한다.
+     */
+    public ParallelCount submit(Supplier<Long> count) {
+        ParallelCount parallelCount = new ParallelCount(count);
+        try {
+            executor.execute(parallelCount::run);
+        } catch (RejectedExecutionException e) {
+            log.debug("parallel count threads are busy, counting sequentially");
+        }
+        return parallelCount;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    public class ParallelCount {
+        private final Supplier<Long> count;
+        // 먼저 가져간 쪽(worker 쓰레드, join, cancel)만 실행하거나 버린다
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private volatile Session session;
+
+        private ParallelCount(Supplier<Long> count) {
+            this.count = count;
+        }
+
+        private void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(readOnlyTransaction.execute(status -> {
+                    session = em.unwrap(Session.class);
+                    try {
+                        return count.get();
+                    } finally {
+                        session = null;
+                    }
+                }));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 아직 시작하지 않았으면 호출한 쓰레드(트랜잭션)에서 sequential 로 세고, 실행 중이면 끝날 때까지 기다린다.
+         */
+        public long join(Supplier<Long> sequential) {
+            if (claimed.compareAndSet(false, true)) {
+                return sequential.get();
+            }
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 시작하지 않았으면 버리고, 실행 중이면 쿼리를 취소한다. (이미 끝났으면 아무것도 하지 않음)
+         */
+        public void cancel() {
+            if (claimed.compareAndSet(false, true) || result.isDone()) {
+                return;
+            }
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (RuntimeException e) {
+                    log.debug("failed to cancel parallel count", e);
+                }
+            }
+        }
+    }
+}
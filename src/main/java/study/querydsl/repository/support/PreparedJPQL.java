@@ -0,0 +1,78 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 한 번 직렬화한 JPQL 을 재사용하는 쿼리
+ *
+ * querydsl 은 fetch 할 때마다 쿼리 트리를 JPQL 로 직렬화하고
+ * 하이버네이트는 그 문자열로 쿼리 플랜 캐시를 찾는다.
+ * 모양(shape)이 같은 쿼리는 값만 Param 으로 바꿔서 미리 직렬화해두면
+ * 요청마다 직렬화 비용이 없어지고 같은 JPQL 문자열이므로 하이버네이트 쿼리 플랜도 그대로 재사용된다.
+ */
+public class PreparedJPQL<T> {
+    private final String jpql;
+    private final JPQLSerializer serializer;
+    private final Expression<T> projection;
+
+    private PreparedJPQL(String jpql, JPQLSerializer serializer, Expression<T> projection) {
+        this.jpql = jpql;
+        this.serializer = serializer;
+        this.projection = projection;
+    }
+
+    /**
+     * 바인딩할 값은 com.querydsl.core.types.dsl.Param 으로 작성한 쿼리를 넘긴다.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PreparedJPQL<T> of(EntityManager em, JPAQuery<T> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new PreparedJPQL<>(serializer.toString(), serializer,
+                (Expression<T>) query.getMetadata().getProjection());
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        return map(createQuery(em, params).getResultList());
+    }
+
+    /**
+     * createQuery 로 직접 실행한 결과를 프로젝션 타입으로 변환
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> map(List<?> rows) {
+        if (!(projection instanceof FactoryExpression)) {
+            return (List<T>) rows;
+        }
+        FactoryExpression<T> factory = (FactoryExpression<T>) projection;
+        return rows.stream()
+                .map(row -> row instanceof Object[] ? factory.newInstance((Object[]) row) : factory.newInstance(row))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 프로젝션 변환 없이 JPA Query 를 그대로 사용하고 싶을 때
+     * (여러 컬럼을 select 하면 결과 row 는 Object[])
+     */
+    public Query createQuery(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        Query query = em.createQuery(jpql);
+        JPAUtil.setConstants(query, serializer.getConstants(), params);
+        return query;
+    }
+}
@@ -1,13 +1,21 @@
 package study.querydsl.repository.support;
 
+import com.querydsl.core.types.CollectionExpression;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.EntityPathBase;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import
         org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
@@ -19,8 +27,14 @@ import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -36,15 +50,25 @@ import java.util.function.Function;
  * count 쿼리를 별도로 날리는 방식은 fetchOne 으로 바꿀 필요가 있으며 호출코드도
  * 모두 select(member.count()) 와 같은 형식으로 변경해야함
  *
+ * count 쿼리를 받지 않는 applyPagination 은 fetchCount 대신 CountQueries 로
+ * 컨텐츠 쿼리에서 count 쿼리를 유도해서 사용하도록 변경 (order by, 불필요한 left join 제거)
+ *
  * @author Younghan Kim
  * @see org.springframework.data.jpa.repository.support.QuerydslRepositorySupport
  */
 @Repository
 public abstract class Querydsl4RepositorySupport {
+    // IN 절 파라미터가 너무 길어지지 않도록 나눠서 조회
+    private static final int PREFETCH_CHUNK_SIZE = 500;
+
     private final Class domainClass;
+    private PathBuilder<Object> idPath;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ParallelCountExecutor parallelCountExecutor;
+    private MeterRegistry meterRegistry;
+    private AdaptivePaginationExecutor adaptivePaginationExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -58,9 +82,36 @@ public abstract class Querydsl4RepositorySupport {
         JpaEntityInformation entityInformation = JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
         SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
+        PathBuilder<?> builder = new PathBuilder<>(path.getType(), path.getMetadata());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.idPath = builder.get(entityInformation.getIdAttribute().getName());
+        this.querydsl = new Querydsl(entityManager, builder);
+        if (this.queryFactory == null) {
+            this.queryFactory = new JPAQueryFactory(entityManager);
+        }
+    }
+
+    /**
+     * JPAQueryFactory 빈(쿼리 메트릭 수집)이 있으면 그걸 사용
+     */
+    @Autowired(required = false)
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Autowired(required = false)
+    public void setParallelCountExecutor(ParallelCountExecutor parallelCountExecutor) {
+        this.parallelCountExecutor = parallelCountExecutor;
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Autowired(required = false)
+    public void setAdaptivePaginationExecutor(AdaptivePaginationExecutor adaptivePaginationExecutor) {
+        this.adaptivePaginationExecutor = adaptivePaginationExecutor;
     }
 
     @PostConstruct
@@ -90,13 +141,62 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * content 의 to-one 연관관계(지연 로딩 프록시)를 IN 쿼리로 한 번에 초기화한다.
+     * ex) prefetch(members, Member::getTeam, team)
+     */
+    protected <T, A> List<T> prefetch(List<T> content, Function<T, A> association, EntityPathBase<A> path) {
+        List<A> proxies = content.stream()
+                .map(association)
+                .filter(Objects::nonNull)
+                .filter(proxy -> !Hibernate.isInitialized(proxy))
+                .distinct()
+                .collect(Collectors.toList());
+        for (List<A> chunk : chunks(proxies)) {
+            // 엔티티 파라미터는 프록시를 초기화하지 않고 id 로 바인딩된다
+            selectFrom(path).where(path.in(chunk)).fetch();
+        }
+        // 영속성 컨텍스트에 이미 올라와 있으므로 추가 쿼리 없이 초기화됨
+        proxies.forEach(Hibernate::initialize);
+        return content;
+    }
+
+    /**
+     * owners 의 컬렉션 연관관계를 fetch join 으로 한 번에 초기화한다.
+     * ex) prefetchCollection(teams, team, team.members)
+     */
+    protected <T> List<T> prefetchCollection(List<T> owners, EntityPathBase<T> path,
+                                             CollectionExpression<?, ?> collection) {
+        String property = ((Path<?>) collection).getMetadata().getName();
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<T> targets = owners.stream()
+                .filter(owner -> !util.isLoaded(owner, property))
+                .collect(Collectors.toList());
+        for (List<T> chunk : chunks(targets)) {
+            selectFrom(path)
+                    .leftJoin(collection).fetchJoin()
+                    .where(path.in(chunk))
+                    .fetch();
+        }
+        return owners;
+    }
+
+    private static <E> List<List<E>> chunks(List<E> list) {
+        List<List<E>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += PREFETCH_CHUNK_SIZE) {
+            chunks.add(list.subList(i, Math.min(list.size(), i + PREFETCH_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<Long> countQuery = CountQueries.derive(getQueryFactory(), jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                countQuery::fetchOne);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
@@ -109,4 +209,120 @@ public abstract class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
-}
\ No newline at end of file
+
+    protected <T> Page<T> applyPagination(Pageable pageable, PaginationStrategy strategy,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<Long> countQuery = CountQueries.derive(getQueryFactory(), jpaQuery);
+        List<T> content = fetchContent(pageable, strategy, jpaQuery);
+        return PageableExecutionUtils.getPage(content, pageable,
+                countQuery::fetchOne);
+    }
+
+    protected <T> Page<T> applyPagination(Pageable pageable, PaginationStrategy strategy,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery) {
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = fetchContent(pageable, strategy, jpaContentQuery);
+        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable,
+                countResult::fetchCount);
+    }
+
+    /**
+     * count 쿼리 없이 size + 1 건을 조회해서 다음 페이지 여부만 판단한다. (무한 스크롤)
+     */
+    protected <T> Slice<T> applySlice(Pageable pageable,
+                                      Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(jpaQuery.fetch(), pageable, false);
+        }
+        List<T> content = jpaQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * name, shape(조건 조합) 별 예상 total 에 따라 count 를 먼저 실행할지, 컨텐츠를 먼저 실행할지, 최대 건수까지만 셀지 고른다.
+     * (AdaptivePaginationExecutor, name 은 메트릭 태그)
+     * executor 빈이 없으면 applyPagination 과 같다.
+     */
+    protected <T> Page<T> applyAdaptivePagination(String name, String shape, Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        if (adaptivePaginationExecutor == null) {
+            return applyPagination(pageable, contentQuery);
+        }
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<Long> countQuery = CountQueries.derive(getQueryFactory(), jpaQuery);
+        getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+        return adaptivePaginationExecutor.execute(name, shape, pageable, (JPAQuery<T>) jpaQuery, idPath,
+                countQuery::fetchOne);
+    }
+
+    /**
+     * execution 에 따라 count 쿼리를 컨텐츠 쿼리와 동시에 실행할 수 있다.
+     * count 쿼리는 두 방식 모두 CountQueries 로 컨텐츠 쿼리에서 유도한다.
+     * 두 방식 비교를 위해 실행시간을 querydsl.pagination 타이머(mode 태그)로 기록한다.
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable, PaginationExecution execution,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        long start = System.nanoTime();
+        Page<T> page = execution == PaginationExecution.PARALLEL && parallelCountExecutor != null ?
+                applyPaginationParallel(pageable, contentQuery) :
+                applyPagination(pageable, contentQuery);
+        recordLatency(execution, System.nanoTime() - start);
+        return page;
+    }
+
+    private <T> Page<T> applyPaginationParallel(Pageable pageable,
+                                                Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        // count 는 별도 스레드(트랜잭션)에서 실행되므로 쿼리도 그 안에서 만든다
+        Supplier<Long> countQuery = () -> CountQueries.derive(getQueryFactory(), contentQuery.apply(getQueryFactory()))
+                .fetchOne();
+        ParallelCountExecutor.ParallelCount count = parallelCountExecutor.submit(countQuery);
+
+        List<T> content;
+        try {
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+        } catch (RuntimeException e) {
+            count.cancel();
+            throw e;
+        }
+
+        // 첫 페이지가 덜 찼거나 마지막 페이지면 count 가 필요없으므로 결과를 기다리지 않는다
+        // count 가 아직 시작하지 못했으면 지금 트랜잭션에서 센다
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> count.join(countQuery));
+        count.cancel();
+        return page;
+    }
+
+    private void recordLatency(PaginationExecution execution, long nanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("querydsl.pagination")
+                .tag("repository", getClass().getSimpleName())
+                .tag("mode", execution.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private <T> List<T> fetchContent(Pageable pageable, PaginationStrategy strategy, JPAQuery jpaQuery) {
+        if (strategy == PaginationStrategy.OFFSET) {
+            // count 쿼리가 offset, limit 의 영향을 받지 않도록 복사본에 페이징 적용
+            return getQuerydsl().applyPagination(pageable, jpaQuery.clone()).fetch();
+        }
+        JPAQuery sorted = (JPAQuery) getQuerydsl().applySorting(pageable.getSort(), jpaQuery.clone());
+        return DeferredJoin.fetch(getQueryFactory(), sorted, idPath, pageable);
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.service;
+
+import study.querydsl.dto.AgeStats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 나이별 인원수를 담는 lock-free 히스토그램
+ *
+ * 삭제, 팀 변경으로 인원이 빠져도 min, max 를 다시 구할 수 있도록 나이별로 센다.
+ * (0 ~ MAX_AGE 밖의 나이는 min, max 계산시 경계값으로 취급하고 sum 은 그대로 더한다)
+ * 여러 필드를 한 번에 읽지 않으므로 변경 도중에 읽으면 잠깐 어긋난 값이 보일 수 있다.
+ */
+class AgeHistogram {
+    static final int MAX_AGE = 200;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAX_AGE + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    void add(int age, long delta) {
+        counts.addAndGet(Math.max(0, Math.min(MAX_AGE, age)), delta);
+        count.add(delta);
+        sum.add(age * delta);
+    }
+
+    AgeStats snapshot() {
+        long total = count.sum();
+        if (total <= 0) {
+            return AgeStats.EMPTY;
+        }
+        int min = 0;
+        while (min < MAX_AGE && counts.get(min) <= 0) {
+            min++;
+        }
+        int max = MAX_AGE;
+        while (max > 0 && counts.get(max) <= 0) {
+            max--;
+        }
+        return new AgeStats(total, sum.sum(), min, max);
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@ToString
+public class BulkOperationResult {
+    private final List<ChunkResult> chunks;
+    private final Duration elapsed;
+
+    public BulkOperationResult(List<ChunkResult> chunks, Duration elapsed) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.elapsed = elapsed;
+    }
+
+    public long getTotalAffected() {
+        return chunks.stream()
+                .mapToLong(ChunkResult::getAffected)
+                .sum();
+    }
+
+    /**
+     * 청크 하나(= 트랜잭션 하나)의 실행 결과. fromId, toId 는 청크의 첫번째, 마지막 id
+     */
+    @Getter
+    @ToString
+    public static class ChunkResult {
+        private final long fromId;
+        private final long toId;
+        private final long affected;
+        private final Duration elapsed;
+
+        public ChunkResult(long fromId, long toId, long affected, Duration elapsed) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.affected = affected;
+            this.elapsed = elapsed;
+        }
+    }
+}
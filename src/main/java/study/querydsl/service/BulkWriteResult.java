@@ -0,0 +1,24 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkWriteResult {
+    private final long rows;
+    private final Duration elapsed;
+
+    public BulkWriteResult(long rows, Duration elapsed) {
+        this.rows = rows;
+        this.elapsed = elapsed;
+    }
+
+    @ToString.Include
+    public double getRowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return rows * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * member 벌크 update/delete 를 id 순서대로 chunkSize 건씩 나눠서 실행
+ *
+ * update member set ... 한 방은 대상 row 전체에 락을 잡고 undo 로그를 크게 만들기 때문에
+ * - 조건에 맞는 다음 id 를 chunkSize 개 조회하고 (where id > 마지막 id order by id, keyset)
+ *   그 id 들만 update/delete 한다. (where id in (...), 조건도 다시 적용)
+ *   min ~ max 를 일정한 범위로 나누면 id 가 띄엄띄엄하거나 조건에 맞는 row 가 적을 때 빈 청크가 많아지기 때문
+ * - 청크마다 별도 트랜잭션(REQUIRES_NEW)으로 실행해서 바로 커밋하고
+ * - maxChunksPerSecond 로 실행 속도를 제한한다.
+ *
+ * 주의
+ * - where 는 member 만 참조해야 한다. (JPQL update/delete 는 join 불가, 필요하면 서브쿼리 사용)
+ * - 청크마다 커밋되므로 전체가 하나의 트랜잭션으로 묶이지 않는다. 중간에 실패하면 앞 청크는 반영된 상태
+ * - 호출하는 쪽 트랜잭션이 대상 row 에 락을 잡고 있으면 청크 트랜잭션이 대기하므로 트랜잭션 밖에서 호출하자.
+ *
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 끝난 뒤 현재 영속성 컨텍스트를 비워준다.
+ * (QueryDslBasicTest.bulkUpdate 에서 본 것처럼 이전 값이 그대로 조회되는 문제 방지)
+ */
+@Service
+public class MemberBulkOperationService {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+
+    public MemberBulkOperationService(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public BulkOperationResult update(Predicate where, Consumer<JPAUpdateClause> setter,
+                                      int chunkSize, double maxChunksPerSecond) {
+        return execute(where, chunkSize, maxChunksPerSecond, ids -> {
+            JPAUpdateClause clause = queryFactory.update(member);
+            setter.accept(clause);
+            return clause.where(where, member.id.in(ids))
+                    .execute();
+        });
+    }
+
+    public BulkOperationResult delete(Predicate where, int chunkSize, double maxChunksPerSecond) {
+        return execute(where, chunkSize, maxChunksPerSecond, ids -> queryFactory
+                .delete(member)
+                .where(where, member.id.in(ids))
+                .execute());
+    }
+
+    private BulkOperationResult execute(Predicate where, int chunkSize, double maxChunksPerSecond,
+                                        ToLongFunction<List<Long>> chunk) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be greater than 0");
+        long start = System.nanoTime();
+        long intervalNanos = maxChunksPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxChunksPerSecond) : 0;
+        List<BulkOperationResult.ChunkResult> results = new ArrayList<>();
+
+        Long lastId = null;
+        while (true) {
+            long chunkStart = System.nanoTime();
+            Long afterId = lastId;
+            List<Long> ids = new ArrayList<>();
+            Long affected = chunkTransaction.execute(status -> {
+                ids.addAll(queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(where, afterId != null ? member.id.gt(afterId) : null)
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch());
+                return ids.isEmpty() ? 0L : chunk.applyAsLong(ids);
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+
+            long chunkElapsed = System.nanoTime() - chunkStart;
+            results.add(new BulkOperationResult.ChunkResult(ids.get(0), lastId,
+                    affected != null ? affected : 0, Duration.ofNanos(chunkElapsed)));
+            // 덜 찼으면 마지막 청크
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            throttle(intervalNanos - chunkElapsed);
+        }
+
+        em.clear();
+        return new BulkOperationResult(results, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void throttle(long sleepNanos) {
+        if (sleepNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 연산 도중 인터럽트 되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Member, Team 대량 적재
+ *
+ * em.persist 를 한 건씩 호출하되
+ * - id 는 시퀀스를 querydsl.id.block_size 단위로 미리 할당받고 (PooledLoSequenceGenerator)
+ * - insert 는 hibernate.jdbc.batch_size 단위로 묶어서 보내고 (order_inserts 로 테이블별 정렬)
+ * - batch_size 마다 flush, clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ *
+ * 항상 새 트랜잭션(REQUIRES_NEW)에서 실행하므로 clear 는 호출한 쪽의 영속성 컨텍스트에 영향을 주지 않는다.
+ * 대신 호출한 쪽이 트랜잭션 안이면 커넥션을 하나 더 사용하고, 롤백되어도 이미 적재한 데이터는 남는다.
+ *
+ * clear 이후에는 이미 저장한 Team 이 준영속 상태가 되지만 id 가 있으므로 Member 에서 참조하는데 문제없다.
+ * Member 는 Member.of(username, age) 후 setTeam 으로 참조만 건다.
+ * (Member.of(username, age, team) 은 team.members 에도 추가하므로 적재하는 동안 team 컬렉션이 계속 커진다)
+ */
+@Component
+public class MemberBulkWriter {
+    private final EntityManager em;
+    private final int batchSize;
+
+    public MemberBulkWriter(EntityManager em,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Team 을 참조하는 Member 를 넣을 때는 Team 을 먼저 write 해야 한다.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public BulkWriteResult write(Stream<?> entities) {
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Iterator<?> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            em.persist(iterator.next());
+            rows++;
+            if (rows % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        return new BulkWriteResult(rows, Duration.ofNanos(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 메모리에 모으지 않고 바로 OutputStream 으로 흘려보내는 export
+ *
+ * /v1/members 는 결과 전체를 List 로 만든 뒤 직렬화하므로 조건이 없으면 테이블 전체가 힙에 올라간다.
+ * 여기서는 JDBC fetch size 단위로 읽으면서 한 row 씩 쓰기 때문에 메모리 사용량이 결과 크기와 무관하다.
+ * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 중간에 clear 할 필요는 없다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+    private static final int FETCH_SIZE = 1000;
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        JSONL, CSV
+    }
+
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition cond, Format format, OutputStream out) {
+        try (Stream<MemberTeamDto> rows = memberJpaRepository.searchStream(cond, FETCH_SIZE)) {
+            return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeJsonLines(rows.iterator(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeJsonLines(Iterator<MemberTeamDto> rows, OutputStream out) throws IOException {
+        long count = 0;
+        // close 하면 응답 스트림까지 닫히므로 flush 만 한다
+        SequenceWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        while (rows.hasNext()) {
+            writer.write(rows.next());
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<MemberTeamDto> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("memberId,username,age,teamId,teamName\n");
+        while (rows.hasNext()) {
+            MemberTeamDto row = rows.next();
+            writer.write(String.valueOf(row.getMemberId()));
+            writer.write(',');
+            writer.write(csv(row.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getAge()));
+            writer.write(',');
+            writer.write(row.getTeamId() != null ? String.valueOf(row.getTeamId()) : "");
+            writer.write(',');
+            writer.write(csv(row.getTeamName()));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색을 톰캣 요청 쓰레드 대신 실행하는 전용 쓰레드 풀
+ *
+ * 컨트롤러가 비동기로 응답하면 요청 쓰레드는 바로 반납되고 (스프링 MVC 비동기 처리) JDBC 호출은 여기 쓰레드에서 기다린다.
+ * JDBC 는 블로킹이므로 동시에 DB 를 기다리는 검색 수는 늘지 않는다. (threads 개, 그리고 커넥션 풀 크기로 제한)
+ * 얻는 것은 검색이 몰려도 요청 쓰레드가 다른 API 를 처리할 수 있게 남는 것과
+ * 대기열(queue-size)까지 가득 차면 RejectedExecutionException 으로 바로 거절하는 것(요청 쓰레드가 쌓이지 않도록)이다.
+ * 쓰레드 수는 커넥션 풀 크기보다 크게 잡아도 커넥션을 기다리기만 하므로 비슷하게 맞추자.
+ * 효과는 AsyncSearchBenchmark (src/jmh) 로 확인
+ *
+ * 사용량은 executor.* 메트릭 (name=member.search) 으로 확인
+ */
+@Component
+public class MemberSearchExecutor implements DisposableBean {
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitored;
+
+    public MemberSearchExecutor(MeterRegistry meterRegistry,
+                                @Value("${member.async-search.threads:10}") int threads,
+                                @Value("${member.async-search.queue-size:200}") int queueSize) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("member-search-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "member.search", Collections.emptyList());
+    }
+
+    /**
+     * 대기열이 가득 차면 RejectedExecutionException
+     * 반환한 future 를 cancel 하면 대기 중인 검색은 실행하지 않고, 실행 중인 검색은 쓰레드를 interrupt 한다.
+     * (요청이 타임아웃된 뒤에 대기열의 검색이 DB 를 쓰지 않도록)
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = monitored.submit(() -> {
+            try {
+                result.complete(search.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 한 트랜잭션 동안 쌓인 팀별, 나이별 회원 수 변화량과 저장된 팀 이름
+ * 회원이 아무리 많이 바뀌어도 (팀, 나이) 조합 수만큼만 커진다.
+ */
+class MemberStatisticsDeltas {
+    // 팀 id (없으면 null) -> 나이 -> 회원 수 변화량
+    private final Map<Long, Map<Integer, Long>> counts = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private boolean invalidated;
+
+    void add(int age, Long teamId, int count) {
+        counts.computeIfAbsent(teamId, key -> new HashMap<>()).merge(age, (long) count, Long::sum);
+    }
+
+    void teamSaved(Long teamId, String name) {
+        if (teamId != null) {
+            teamNames.put(teamId, name);
+        }
+    }
+
+    // 변화량을 알 수 없는 변경이 있었음 (커밋 후 다시 집계)
+    void invalidate() {
+        invalidated = true;
+    }
+
+    Map<Long, Map<Integer, Long>> getCounts() {
+        return counts;
+    }
+
+    Map<Long, String> getTeamNames() {
+        return teamNames;
+    }
+
+    boolean isInvalidated() {
+        return invalidated;
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.service;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.HibernateEventListenerConfig.EventListenerRegistrar;
+import study.querydsl.config.SessionBuffers;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberChangeHook;
+
+import static study.querydsl.entity.support.MemberState.age;
+import static study.querydsl.entity.support.MemberState.teamId;
+
+/**
+ * 커밋된 Member, Team 변경을 MemberStatisticsService 에 반영한다.
+ *
+ * - em.persist, 변경감지(changeTeam 포함), em.remove -> 하이버네이트 이벤트로 변화량을 트랜잭션별로 모아두고
+ *   커밋된 뒤 한 번에 반영한다. (롤백되면 버린다, SessionBuffers)
+ * - 엔티티 이벤트가 없는 벌크 update/delete -> 트랜잭션 종료 후 통계를 invalidate (MemberChangeHook)
+ */
+@Component
+public class MemberStatisticsListener implements EventListenerRegistrar, MemberChangeHook.Listener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final ObjectProvider<MemberStatisticsService> statisticsProvider;
+    private final SessionBuffers<MemberStatisticsDeltas> deltas;
+
+    public MemberStatisticsListener(ObjectProvider<MemberStatisticsService> statisticsProvider) {
+        this.statisticsProvider = statisticsProvider;
+        this.deltas = SessionBuffers.afterCompletion(MemberStatisticsDeltas::new, (sessionDeltas, committed) -> {
+            if (committed) {
+                statistics().apply(sessionDeltas);
+            }
+        });
+    }
+
+    @Override
+    public void register(EventListenerRegistry registry) {
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            deltas.get(event.getSession()).add(age(event.getPersister(), event.getState()),
+                    teamId(event.getPersister(), event.getState()), 1);
+        } else if (event.getEntity() instanceof Team) {
+            Team team = (Team) event.getEntity();
+            deltas.get(event.getSession()).teamSaved(team.getId(), team.getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            MemberStatisticsDeltas sessionDeltas = deltas.get(event.getSession());
+            if (event.getOldState() == null) {
+                // 이전 상태를 모르면 (detached 엔티티 update 등) 다시 계산
+                sessionDeltas.invalidate();
+                return;
+            }
+            EntityPersister persister = event.getPersister();
+            sessionDeltas.add(age(persister, event.getOldState()), teamId(persister, event.getOldState()), -1);
+            sessionDeltas.add(age(persister, event.getState()), teamId(persister, event.getState()), 1);
+        } else if (event.getEntity() instanceof Team) {
+            Team team = (Team) event.getEntity();
+            deltas.get(event.getSession()).teamSaved(team.getId(), team.getName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            deltas.get(event.getSession()).add(age(event.getPersister(), event.getDeletedState()),
+                    teamId(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    @Override
+    public boolean accepts(MemberChangeHook.Table table, MemberChangeHook.Kind kind) {
+        return kind == MemberChangeHook.Kind.BULK;
+    }
+
+    @Override
+    public void afterCompletion(boolean committed) {
+        statistics().invalidate();
+    }
+
+    private MemberStatisticsService statistics() {
+        return statisticsProvider.getObject();
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.AgeStats;
+import study.querydsl.dto.MemberStatistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별, 나이 구간별 회원 나이 통계를 메모리에서 유지한다.
+ *
+ * DB 에서 group by 하지 않고 MemberStatisticsListener 가 커밋된 트랜잭션의 변화량(insert, update, delete)만 반영한다.
+ * - 처음 조회할 때(cold start) 와 invalidate 이후에는 DB 에서 한 번 group by 로 다시 만든다.
+ * - querydsl 벌크 연산처럼 엔티티 이벤트가 없는 변경은 invalidate 로 처리한다.
+ *   집계에 버전을 두고 invalidate 는 버전만 올리므로, 다시 만드는 도중에 invalidate 되면 그 결과는 바로 다시 만든다.
+ * - 다시 만드는 도중에 커밋된 엔티티 변경은 누락될 수 있으므로 주기적으로(reconcile) 다시 집계해서 교체한다.
+ * 대시보드 용도로 정확한 값은 DB 를 보자.
+ */
+@Slf4j
+@Service
+public class MemberStatisticsService {
+    static final String NO_TEAM = "(no team)";
+    private static final long NO_TEAM_ID = -1L;
+    private static final int BUCKET_SIZE = 10;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnly;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Aggregates aggregates;
+
+    public MemberStatisticsService(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public MemberStatistics getStatistics() {
+        Aggregates current = load();
+
+        Map<String, AgeStats> byTeam = new TreeMap<>();
+        current.byTeam.forEach((teamId, histogram) -> {
+            AgeStats stats = histogram.snapshot();
+            if (stats.getCount() > 0) {
+                byTeam.merge(current.teamName(teamId), stats, AgeStats::merge);
+            }
+        });
+
+        Map<String, AgeStats> byAgeBucket = new TreeMap<>();
+        current.byBucket.forEach((bucket, histogram) -> {
+            AgeStats stats = histogram.snapshot();
+            if (stats.getCount() > 0) {
+                byAgeBucket.put(bucket * BUCKET_SIZE + "-" + (bucket * BUCKET_SIZE + BUCKET_SIZE - 1), stats);
+            }
+        });
+        return new MemberStatistics(byTeam, byAgeBucket);
+    }
+
+    /**
+     * 커밋된 트랜잭션의 변화량 (MemberStatisticsListener)
+     */
+    void apply(MemberStatisticsDeltas deltas) {
+        if (deltas.isInvalidated()) {
+            invalidate();
+            return;
+        }
+        Aggregates current = aggregates;
+        if (current == null) {
+            return;
+        }
+        deltas.getCounts().forEach((teamId, byAge) -> byAge.forEach((age, count) -> {
+            if (count != 0) {
+                current.add(age, teamId, count);
+            }
+        }));
+        deltas.getTeamNames().forEach(current::putTeamName);
+    }
+
+    /**
+     * 다음 조회 때 DB 에서 다시 만든다.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 다시 집계해서 교체한다. 조회하는 쪽은 교체될 때까지 이전 집계를 본다.
+     * 한 번도 조회하지 않았으면 아무것도 하지 않는다.
+     */
+    @Scheduled(fixedDelayString = "${member-statistics.reconcile-interval:10m}",
+            initialDelayString = "${member-statistics.reconcile-interval:10m}")
+    public void reconcile() {
+        if (aggregates != null) {
+            refresh();
+        }
+    }
+
+    private Aggregates load() {
+        Aggregates current = aggregates;
+        if (current != null && current.version == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = aggregates;
+            if (current != null && current.version == version.get()) {
+                return current;
+            }
+            return refresh();
+        }
+    }
+
+    // 집계 전에 읽은 버전을 붙여두므로 집계 도중 invalidate 되면 다음 조회 때 다시 만든다
+    private synchronized Aggregates refresh() {
+        long current = version.get();
+        Aggregates result = readOnly.execute(status -> rebuild(current));
+        aggregates = result;
+        return result;
+    }
+
+    private Aggregates rebuild(long version) {
+        long start = System.nanoTime();
+        Aggregates result = new Aggregates(version);
+        for (Tuple row : queryFactory
+                .select(member.age, team.id, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(member.age, team.id)
+                .fetch()) {
+            result.add(row.get(member.age), row.get(team.id), row.get(member.count()));
+        }
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            result.putTeamName(row.get(team.id), row.get(team.name));
+        }
+        log.info("member statistics rebuilt in {}ms", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static class Aggregates {
+        private final long version;
+        private final ConcurrentMap<Long, AgeHistogram> byTeam = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer, AgeHistogram> byBucket = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, String> teamNames = new ConcurrentHashMap<>();
+
+        Aggregates(long version) {
+            this.version = version;
+        }
+
+        void add(int age, Long teamId, long delta) {
+            byTeam.computeIfAbsent(teamId == null ? NO_TEAM_ID : teamId, key -> new AgeHistogram())
+                    .add(age, delta);
+            byBucket.computeIfAbsent(Math.floorDiv(age, BUCKET_SIZE), key -> new AgeHistogram())
+                    .add(age, delta);
+        }
+
+        // 이름이 없는 팀은 빈 문자열 (ConcurrentHashMap 은 null 값을 넣을 수 없다)
+        void putTeamName(Long teamId, String name) {
+            teamNames.put(teamId, name == null ? "" : name);
+        }
+
+        String teamName(long teamId) {
+            if (teamId == NO_TEAM_ID) {
+                return NO_TEAM;
+            }
+            return teamNames.getOrDefault(teamId, "team#" + teamId);
+        }
+    }
+}
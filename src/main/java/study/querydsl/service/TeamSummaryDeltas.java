@@ -0,0 +1,44 @@
+package study.querydsl.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 한 트랜잭션 동안 쌓인 팀별 회원 수, 나이 합계 변화량
+ */
+class TeamSummaryDeltas {
+    private final Map<Long, long[]> deltas = new HashMap<>();
+    private final Set<Long> createdTeams = new HashSet<>();
+    private final Set<Long> deletedTeams = new HashSet<>();
+
+    void add(Long teamId, int age, int count) {
+        if (teamId == null) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(teamId, key -> new long[2]);
+        delta[0] += count;
+        delta[1] += (long) age * count;
+    }
+
+    void teamCreated(Long teamId) {
+        createdTeams.add(teamId);
+    }
+
+    void teamDeleted(Long teamId) {
+        deletedTeams.add(teamId);
+    }
+
+    Map<Long, long[]> getDeltas() {
+        return deltas;
+    }
+
+    Set<Long> getCreatedTeams() {
+        return createdTeams;
+    }
+
+    Set<Long> getDeletedTeams() {
+        return deletedTeams;
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.service;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.HibernateEventListenerConfig.EventListenerRegistrar;
+import study.querydsl.config.SessionBuffers;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberChangeHook;
+
+import static study.querydsl.entity.support.MemberState.age;
+import static study.querydsl.entity.support.MemberState.teamId;
+
+/**
+ * Member 변경(save, changeTeam, 삭제)과 Team 생성, 삭제를 TeamSummary 에 반영한다.
+ *
+ * flush 때 발생하는 하이버네이트 이벤트로 팀별 변화량을 세션에 모아두고 (SessionBuffers)
+ * 하이버네이트 트랜잭션 완료 직전(BeforeTransactionCompletionProcess)에 같은 트랜잭션으로 반영한다.
+ * 커밋하면서 하는 flush 의 이벤트도 이 시점 전에 모두 발생하므로 빠지지 않고, 롤백되면 요약도 같이 롤백된다.
+ * querydsl 벌크 update/delete 는 이벤트가 없으므로 커밋 후 dirty 로 표시하고 TeamSummaryService.reconcileIfDirty 가 다시 맞춘다.
+ * (MemberChangeHook)
+ */
+@Component
+public class TeamSummaryListener implements EventListenerRegistrar, MemberChangeHook.Listener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final ObjectProvider<TeamSummaryService> serviceProvider;
+    // 세션(트랜잭션)별 변화량 (롤백되면 반영하지 않는다)
+    private final SessionBuffers<TeamSummaryDeltas> deltas;
+
+    public TeamSummaryListener(ObjectProvider<TeamSummaryService> serviceProvider) {
+        this.serviceProvider = serviceProvider;
+        this.deltas = SessionBuffers.beforeCompletion(TeamSummaryDeltas::new, (completing, sessionDeltas) -> {
+            if (serviceProvider.getObject().apply(completing, sessionDeltas) > 0) {
+                // 요약 row 가 없던 팀 (이벤트 없이 만들어진 팀)
+                reconcileAfterCommit();
+            }
+        });
+    }
+
+    @Override
+    public void register(EventListenerRegistry registry) {
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            deltas.get(event.getSession()).add(teamId(event.getPersister(), event.getState()),
+                    age(event.getPersister(), event.getState()), 1);
+        } else if (event.getEntity() instanceof Team) {
+            deltas.get(event.getSession()).teamCreated((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            reconcileAfterCommit();
+            return;
+        }
+        TeamSummaryDeltas sessionDeltas = deltas.get(event.getSession());
+        EntityPersister persister = event.getPersister();
+        sessionDeltas.add(teamId(persister, event.getOldState()), age(persister, event.getOldState()), -1);
+        sessionDeltas.add(teamId(persister, event.getState()), age(persister, event.getState()), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            deltas.get(event.getSession()).add(teamId(event.getPersister(), event.getDeletedState()),
+                    age(event.getPersister(), event.getDeletedState()), -1);
+        } else if (event.getEntity() instanceof Team) {
+            deltas.get(event.getSession()).teamDeleted((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean accepts(MemberChangeHook.Table table, MemberChangeHook.Kind kind) {
+        return table == MemberChangeHook.Table.MEMBER && kind == MemberChangeHook.Kind.BULK;
+    }
+
+    @Override
+    public void afterCompletion(boolean committed) {
+        if (committed) {
+            serviceProvider.getObject().markDirty();
+        }
+    }
+
+    private void reconcileAfterCommit() {
+        MemberChangeHook.afterCompletion(this);
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.TeamSummary;
+import study.querydsl.repository.TeamSummaryRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static study.querydsl.entity.QTeamSummary.teamSummary;
+
+/**
+ * TeamSummary 갱신
+ * - apply : 트랜잭션에서 쌓인 변화량을 커밋 직전에 같은 트랜잭션으로 반영 (update ... set count = count + ?)
+ *           요약 row 는 팀을 만들 때 같이 insert 한다.
+ * - reconcile : member 를 다시 집계해서 맞춘다. 시작시, 주기적으로 실행
+ *               엔티티 이벤트가 없는 벌크 연산 후에는 markDirty 로 표시만 하고 reconcileIfDirty 가 한 번 실행한다.
+ */
+@Slf4j
+@Service
+public class TeamSummaryService {
+    private final EntityManager em;
+    private final TeamSummaryRepository teamSummaryRepository;
+    // reconcile 을 트랜잭션 프록시로 호출하기 위함
+    private final ObjectProvider<TeamSummaryService> self;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public TeamSummaryService(EntityManager em, TeamSummaryRepository teamSummaryRepository,
+                              ObjectProvider<TeamSummaryService> self) {
+        this.em = em;
+        this.teamSummaryRepository = teamSummaryRepository;
+        this.self = self;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TeamSummary> findByTeamId(Long teamId) {
+        return teamSummaryRepository.findById(teamId);
+    }
+
+    /**
+     * 트랜잭션 완료 직전에 커밋하는 세션으로 변화량을 반영한다. (TeamSummaryListener)
+     * 요약 row 는 팀이 만들어질 때 같은 트랜잭션에서 insert 하므로 여기서는 update 만 한다.
+     * 동시에 같은 팀을 처음 갱신하는 트랜잭션끼리 insert 가 충돌하지 않는다.
+     * @return 요약 row 가 없어서 반영하지 못한 팀 수 (reconcile 로 맞춘다)
+     */
+    int apply(EntityManager session, TeamSummaryDeltas deltas) {
+        for (Long teamId : deltas.getCreatedTeams()) {
+            session.createNativeQuery("insert into team_summary (team_id, member_count, age_sum) values (?, 0, 0)")
+                    .setParameter(1, teamId)
+                    .executeUpdate();
+        }
+        JPAQueryFactory sessionQuery = new JPAQueryFactory(session);
+        int missing = 0;
+        for (Map.Entry<Long, long[]> entry : deltas.getDeltas().entrySet()) {
+            long[] delta = entry.getValue();
+            if (delta[0] == 0 && delta[1] == 0) {
+                continue;
+            }
+            long updated = sessionQuery.update(teamSummary)
+                    .set(teamSummary.memberCount, teamSummary.memberCount.add(delta[0]))
+                    .set(teamSummary.ageSum, teamSummary.ageSum.add(delta[1]))
+                    .where(teamSummary.teamId.eq(entry.getKey()))
+                    .execute();
+            if (updated == 0) {
+                missing++;
+            }
+        }
+        if (!deltas.getDeletedTeams().isEmpty()) {
+            sessionQuery.delete(teamSummary)
+                    .where(teamSummary.teamId.in(deltas.getDeletedTeams()))
+                    .execute();
+        }
+        return missing;
+    }
+
+    /**
+     * 다음 reconcileIfDirty 때 다시 맞춘다. (엔티티 이벤트가 없는 벌크 연산이 커밋된 뒤, TeamSummaryListener)
+     * 청크마다 커밋하는 벌크 연산(MemberBulkOperationService)이 청크마다 전체 집계를 하지 않도록 표시만 한다.
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * markDirty 이후 한 번만 다시 맞춘다.
+     * @return 값이 달라서 고친 팀 수 (dirty 가 아니면 0)
+     */
+    @Scheduled(fixedDelayString = "${team-summary.dirty-check-interval:5s}",
+            initialDelayString = "${team-summary.dirty-check-interval:5s}")
+    public int reconcileIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return 0;
+        }
+        return self.getObject().reconcile();
+    }
+
+    /**
+     * member 를 다시 집계해서 맞춘다.
+     * 읽은 값으로 덮어쓰면 그 사이에 커밋된 apply(count = count + ?) 가 사라지므로
+     * 팀마다 서브쿼리로 센 값을 한 문장으로 update 한다. (달라진 row 만)
+     * @return 값이 달라서 고친 팀 수
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Scheduled(fixedDelayString = "${team-summary.reconcile-interval:10m}",
+            initialDelayString = "${team-summary.reconcile-interval:10m}")
+    public int reconcile() {
+        int fixed = em.createNativeQuery("update team_summary s set"
+                        + " member_count = (select count(*) from member m where m.team_id = s.team_id),"
+                        + " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = s.team_id)"
+                        + " where s.member_count <> (select count(*) from member m where m.team_id = s.team_id)"
+                        + " or s.age_sum <> (select coalesce(sum(m.age), 0) from member m where m.team_id = s.team_id)")
+                .executeUpdate();
+        // 요약이 없는 팀
+        fixed += em.createNativeQuery("insert into team_summary (team_id, member_count, age_sum)"
+                        + " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0)"
+                        + " from team t left join member m on m.team_id = t.team_id"
+                        + " where not exists (select 1 from team_summary s where s.team_id = t.team_id)"
+                        + " group by t.team_id")
+                .executeUpdate();
+        // 팀이 없어진 요약
+        fixed += em.createNativeQuery("delete from team_summary s"
+                        + " where not exists (select 1 from team t where t.team_id = s.team_id)")
+                .executeUpdate();
+
+        if (fixed > 0) {
+            log.info("team summary reconciled: {} teams fixed", fixed);
+        }
+        return fixed;
+    }
+
+    // 테이블이 비어있거나 꺼져있는 동안 바뀐 데이터를 맞춘다
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+}
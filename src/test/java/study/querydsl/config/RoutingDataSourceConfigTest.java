@@ -0,0 +1,62 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "datasource.routing.enabled=true",
+        "datasource.routing.strategy=round-robin",
+        "datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica0;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas[0].username=sa",
+        "datasource.routing.replicas[1].url=jdbc:h2:mem:routing-replica1;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas[1].username=sa",
+})
+class RoutingDataSourceConfigTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    HikariDataSource primaryDataSource;
+
+    @Test
+    public void readOnlyToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String first = readOnly.execute(status -> connectionUrl());
+        String second = readOnly.execute(status -> connectionUrl());
+
+        assertThat(first).startsWith("jdbc:h2:mem:routing-replica0");
+        assertThat(second).startsWith("jdbc:h2:mem:routing-replica1");
+    }
+
+    @Test
+    public void writeToPrimary() {
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+
+        assertThat(write.execute(status -> connectionUrl())).startsWith("jdbc:h2:mem:routing-primary");
+    }
+
+    @Test
+    public void primaryUsesHikariProperties() {
+        assertThat(primaryDataSource.getPoolName()).isEqualTo("primary");
+        assertThat(primaryDataSource.getMaximumPoolSize()).isEqualTo(7);
+    }
+
+    private String connectionUrl() {
+        return em.unwrap(Session.class).doReturningWork(con -> con.getMetaData().getURL());
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "querydsl.index-advisor.min-executions=1")
+@Transactional
+class IndexAdvisorTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepo;
+    @Autowired
+    MemberJpaRepository memberJpaRepo;
+    @Autowired
+    IndexAdvisor advisor;
+
+    @Test
+    public void recommendByShape() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+
+        MemberSearchCondition byUsernameAndAge = new MemberSearchCondition();
+        byUsernameAndAge.setUsername("member1");
+        byUsernameAndAge.setAgeGoe(5);
+        byUsernameAndAge.setAgeLoe(15);
+        memberRepo.searchPageComplex(byUsernameAndAge, PageRequest.of(0, 10));
+        memberJpaRepo.searchByBuilder(byUsernameAndAge);
+
+        MemberSearchCondition byTeamName = new MemberSearchCondition();
+        byTeamName.setTeamName("teamA");
+        memberRepo.searchPageSimple(byTeamName, PageRequest.of(0, 10));
+
+        List<IndexAdvice> advice = advisor.advise();
+
+        IndexAdvice usernameAge = find(advice, "member.username =, member.age >=, member.age <=");
+        assertThat(usernameAge.getShape().getExecutions()).isEqualTo(2);
+        assertThat(usernameAge.getShape().getMethods()).containsExactlyInAnyOrder("searchPageComplex", "searchByBuilder");
+        assertThat(usernameAge.getPlan()).isNotBlank();
+        assertThat(usernameAge.getIndexes())
+                .extracting(IndexAdvice.Index::getDdl)
+                .containsExactly("create index if not exists idx_member_username_age on member (username, age)");
+
+        IndexAdvice teamName = find(advice, "team.name =");
+        assertThat(teamName.getIndexes())
+                .extracting(IndexAdvice.Index::getEntityIndex)
+                .containsExactly("@Index(name = \"idx_team_name\", columnList = \"name\")");
+    }
+
+    private IndexAdvice find(List<IndexAdvice> advice, String key) {
+        return advice.stream()
+                .filter(a -> a.getShape().getKey().equals(key))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * batch fetch 가 켜져 있으면 지연 로딩이 IN 쿼리로 묶이므로 꺼두고 테스트
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@Transactional
+class NPlusOneDetectorTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 3; i++) {
+            Team t = Team.of("team" + i);
+            em.persist(t);
+            em.persist(Member.of("member" + i, 10 + i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void failOnLazyLoadingPerRow() {
+        List<Member> members = queryFactory.selectFrom(member).fetch();
+
+        assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getName()))
+                .isInstanceOf(NPlusOneException.class)
+                .hasMessageContaining("study.querydsl.entity.Team")
+                .hasMessageContaining("fetchJoin()");
+    }
+
+    @Test
+    public void failOnCollectionPerRow() {
+        List<Team> teams = queryFactory.selectFrom(team).fetch();
+
+        assertThatThrownBy(() -> teams.forEach(t -> t.getMembers().size()))
+                .isInstanceOf(NPlusOneException.class)
+                .hasMessageContaining("team.members");
+    }
+
+    @Test
+    public void fetchJoinPasses() {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+
+        members.forEach(m -> m.getTeam().getName());
+        assertThat(members).hasSize(3);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepo;
+    @Autowired
+    QueryShapesEndpoint endpoint;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void recordByShapeAndMethod() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("teamA");
+        memberRepo.searchPageComplex(cond, PageRequest.of(0, 10));
+        memberRepo.search(cond);
+
+        List<QueryShape> shapes = endpoint.shapes();
+        QueryShape content = shapes.stream()
+                .filter(shape -> shape.getMethods().contains("MemberRepositoryImpl.searchPageComplex"))
+                .filter(shape -> shape.getJpql().startsWith("select member1.id"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(content.getExecutions()).isGreaterThanOrEqualTo(1);
+        assertThat(endpoint.shape(content.getId())).isSameAs(content);
+
+        // 템플릿(PreparedJPQL) 으로 실행한 검색도 기록된다
+        assertThat(shapes).anyMatch(shape -> shape.getMethods().contains("MemberRepositoryImpl.fetchSearch"));
+
+        assertThat(meterRegistry.find("querydsl.query.execution")
+                .tags("shape", content.getId(), "method", "MemberRepositoryImpl.searchPageComplex")
+                .timer())
+                .isNotNull();
+        assertThat(meterRegistry.find("querydsl.query.rows")
+                .tags("shape", content.getId())
+                .summary()
+                .max())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void sameJpqlByDifferentMethods() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 10, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("teamA");
+        memberRepo.searchPageComplex(cond, PageRequest.of(0, 10));
+        memberRepo.searchPageEstimated(cond, PageRequest.of(0, 10));
+
+        // 두 메소드의 컨텐츠 쿼리는 JPQL 이 같지만 메소드별로 따로 기록된다
+        QueryShape content = endpoint.shapes().stream()
+                .filter(shape -> shape.getMethods().contains("MemberRepositoryImpl.searchPageComplex"))
+                .filter(shape -> shape.getJpql().startsWith("select member1.id"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(content.getMethods()).contains("MemberRepositoryImpl.searchPageEstimated");
+    }
+}
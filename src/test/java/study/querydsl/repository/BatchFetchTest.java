@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 10개, 회원 20명 페이지에서 연관관계를 모두 읽어도 쿼리는 2번
+ * (batch fetch 가 없으면 1 + 10 번)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BatchFetchTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberTestRepository testRepo;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 10; i++) {
+            Team t = Team.of("team" + i);
+            em.persist(t);
+            em.persist(Member.of("member" + i + "a", i, t));
+            em.persist(Member.of("member" + i + "b", i, t));
+        }
+        em.flush();
+        em.clear();
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void batchFetchMemberTeam() {
+        // 첫 페이지가 다 차지 않으므로 count 쿼리는 생략된다
+        Page<Member> page = testRepo.applyPagination(new MemberSearchCondition(), PageRequest.of(0, 30));
+        page.getContent().forEach(m -> m.getTeam().getName());
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void batchFetchTeamMembers() {
+        List<Team> teams = queryFactory.selectFrom(team).fetch();
+        teams.forEach(t -> t.getMembers().size());
+
+        assertThat(teams).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void prefetchMemberTeam() {
+        Page<Member> page = testRepo.applyPaginationWithTeam(new MemberSearchCondition(), PageRequest.of(0, 30));
+
+        assertThat(page.getContent()).allMatch(m -> Hibernate.isInitialized(m.getTeam()));
+        page.getContent().forEach(m -> m.getTeam().getName());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void prefetchTeamMembers() {
+        List<Team> teams = testRepo.findTeamsWithMembers(queryFactory.selectFrom(team).fetch());
+
+        assertThat(teams).allMatch(t -> Hibernate.isInitialized(t.getMembers()));
+        assertThat(teams).allMatch(t -> t.getMembers().size() == 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
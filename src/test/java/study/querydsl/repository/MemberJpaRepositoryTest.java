@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -15,6 +16,7 @@ import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -107,4 +109,30 @@ class MemberJpaRepositoryTest {
         assertThat(results.size()).isEqualTo(1);
         assertThat(results).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchColumns() {
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+        em.persist(Member.of("member3", 30, teamB));
+        em.persist(Member.of("member4", 40, teamB));
+        em.persist(Member.of("member5", 50));
+
+        MemberColumns columns = jpaRepo.searchColumns(new MemberSearchCondition(), 2);
+
+        assertThat(columns.size()).isEqualTo(5);
+        assertThat(columns.averageAge()).isEqualTo(30);
+        assertThat(columns.countByTeam()).containsOnly(entry("teamA", 2L), entry("teamB", 2L));
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.getAge(i) == 50) {
+                assertThat(columns.getTeamCode(i)).isEqualTo(MemberColumns.NO_TEAM);
+                assertThat(columns.getTeamName(i)).isNull();
+            }
+        }
+    }
+}
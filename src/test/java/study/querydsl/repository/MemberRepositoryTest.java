@@ -5,7 +5,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -13,9 +18,12 @@ import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -145,6 +153,127 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3", "member4");
     }
 
+    @Test
+    public void searchPageEstimated() {
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = Member.of("member1", 10, teamA);
+        Member member2 = Member.of("member2", 20, teamA);
+        Member member3 = Member.of("member3", 30, teamB);
+        Member member4 = Member.of("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        Page<MemberTeamDto> results = memberRepo.searchPageEstimated(cond, pageRequest);
+
+        // cap 이내의 건수는 정확한 total 이 나와야함
+        assertThat(results.getTotalElements()).isEqualTo(4);
+        assertThat(results.getContent())
+                .extracting("username")
+                .containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void searchSliceByCursor() {
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = Member.of("member1", 40, teamA);
+        Member member2 = Member.of("member2", 20, teamA);
+        Member member3 = Member.of("member3", 20, teamB);
+        Member member4 = Member.of("member4", 10, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        MemberCursorSlice first = memberRepo.searchSlice(cond, MemberCursor.first(MemberCursor.SortKey.AGE), 2);
+
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getContent())
+                .extracting("username")
+                .containsExactly("member4", "member2");
+
+        // 같은 나이(20)가 페이지 경계에 걸려도 id tiebreaker 로 누락/중복이 없어야함
+        MemberCursorSlice second = memberRepo.searchSlice(cond, MemberCursor.decode(first.getNextCursor()), 2);
+
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.getContent())
+                .extracting("username")
+                .containsExactly("member3", "member1");
+    }
+
+    @Test
+    public void decodeRejectsPartialCursor() {
+        String partial = Base64.getUrlEncoder().encodeToString("AGE:null:1".getBytes(StandardCharsets.UTF_8));
+        String emptyAge = Base64.getUrlEncoder().encodeToString("AGE::1".getBytes(StandardCharsets.UTF_8));
+        String missingId = Base64.getUrlEncoder().encodeToString("AGE:10".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> MemberCursor.decode(partial)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(emptyAge)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(missingId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemberCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void searchSliceByPageable() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+        em.persist(Member.of("member3", 30, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        Slice<MemberTeamDto> first = memberRepo.searchSlice(cond, PageRequest.of(0, 2));
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent())
+                .extracting("username")
+                .containsExactly("member1", "member2");
+
+        Slice<MemberTeamDto> second = memberRepo.searchSlice(cond, first.nextPageable());
+
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent())
+                .extracting("username")
+                .containsExactly("member3");
+    }
+
+    @Test
+    public void searchSliceSortedAndUnpaged() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 20, teamA));
+        em.persist(Member.of("member2", 10, teamA));
+        em.persist(Member.of("member3", 20, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        // 같은 나이는 id 순
+        Slice<MemberTeamDto> sorted = memberRepo.searchSlice(cond,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(sorted.getContent())
+                .extracting("username")
+                .containsExactly("member1", "member3");
+
+        Slice<MemberTeamDto> unpaged = memberRepo.searchSlice(cond, Pageable.unpaged());
+        assertThat(unpaged.hasNext()).isFalse();
+        assertThat(unpaged.getContent()).hasSize(3);
+
+        assertThatThrownBy(() -> memberRepo.searchSlice(cond, PageRequest.of(0, 2, Sort.by("team.id"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void queryDslPredicateExecutor() {
         Team teamA = Team.of("teamA");
@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션 밖에서 호출하므로 캐시가 동작하는 상황
+ */
+class MemberSearchCacheTest {
+    SimpleMeterRegistry registry;
+    CaffeineMemberSearchCache searchCache;
+    MemberChangeHook hook;
+    AtomicInteger loadCount;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        searchCache = new CaffeineMemberSearchCache(Duration.ofMinutes(1), 100, registry);
+        MemberCountCache countCache = new MemberCountCache(Duration.ofMinutes(1), 100, 1000, registry);
+        hook = new MemberChangeHook(List.of(new MemberCacheInvalidator(searchCache, countCache)));
+        loadCount = new AtomicInteger();
+    }
+
+    @Test
+    void sameConditionIsCached() {
+        MemberSearchCondition cond1 = new MemberSearchCondition();
+        cond1.setTeamName("teamA");
+        MemberSearchCondition cond2 = new MemberSearchCondition();
+        cond2.setTeamName("teamA");
+        cond2.setUsername("");
+
+        searchCache.get(cond1, this::load);
+        List<MemberTeamDto> result = searchCache.get(cond2, this::load);
+
+        // 빈 문자열은 조건 없음과 같으므로 같은 키로 취급
+        assertThat(loadCount.get()).isEqualTo(1);
+        assertThat(result).extracting("username").containsExactly("member1");
+        assertThat(registry.get("cache.gets").tag("cache", "memberSearch").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void writeSqlInvalidatesCache() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        searchCache.get(cond, this::load);
+
+        hook.inspect("select member0_.member_id from member member0_");
+        searchCache.get(cond, this::load);
+        assertThat(loadCount.get()).isEqualTo(1);
+
+        hook.inspect("update member set age=age+1");
+        searchCache.get(cond, this::load);
+        assertThat(loadCount.get()).isEqualTo(2);
+
+        // use_sql_comments 로 주석이 붙은 id 조건 벌크 update
+        hook.inspect("/* update study.querydsl.entity.Member m set m.username = ?1 where m.id = ?2 */ "
+                + "update member set username=? where member_id=?");
+        searchCache.get(cond, this::load);
+        assertThat(loadCount.get()).isEqualTo(3);
+    }
+
+    private List<MemberTeamDto> load(MemberSearchCondition cond) {
+        loadCount.incrementAndGet();
+        return List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryTemplatesTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository jpaRepo;
+
+    MemberSearchQueryTemplates templates;
+
+    @BeforeEach
+    void setupData() {
+        templates = new MemberSearchQueryTemplates(em);
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+        em.persist(Member.of("member3", 30, teamB));
+        em.persist(Member.of("member4", 40, teamB));
+    }
+
+    /**
+     * 16 가지 조건 조합 모두 BooleanBuilder 로 만든 동적 쿼리와 결과가 같아야함
+     */
+    @Test
+    void allShapesMatchDynamicQuery() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition cond = new MemberSearchCondition();
+            cond.setUsername((shape & 1) != 0 ? "member3" : null);
+            cond.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            cond.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            cond.setAgeLoe((shape & 8) != 0 ? 30 : null);
+
+            List<MemberTeamDto> expected = jpaRepo.searchByBuilder(cond);
+            List<MemberTeamDto> result = templates.fetch(cond.getUsername(), cond.getTeamName(),
+                    cond.getAgeGoe(), cond.getAgeLoe());
+
+            assertThat(result).as("shape=%d", shape).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void sameShapeReusesJpql() {
+        templates.fetch("member1", null, null, null);
+        String jpql = templates.prepared(1).getJpql();
+
+        List<MemberTeamDto> result = templates.fetch("member2", null, null, null);
+
+        assertThat(templates.prepared(1).getJpql()).isSameAs(jpql);
+        assertThat(result).extracting("username").containsExactly("member2");
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ParallelCountExecutor;
+import study.querydsl.service.MemberBulkOperationService;
+import study.querydsl.service.MemberBulkWriter;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 병렬 count 는 별도 트랜잭션에서 실행되므로 커밋된 데이터가 필요하다.
+ * 테스트 트랜잭션 없이 데이터를 넣고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberTestRepositoryParallelCountTest {
+    @Autowired
+    MemberTestRepository testRepo;
+    @Autowired
+    MemberBulkWriter bulkWriter;
+    @Autowired
+    MemberBulkOperationService bulkOperationService;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    ParallelCountExecutor parallelCountExecutor;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setupData() {
+        Team parallelTeam = Team.of("parallelTeam");
+        bulkWriter.write(Stream.of(parallelTeam));
+        bulkWriter.write(IntStream.range(0, 5)
+                .mapToObj(i -> {
+                    Member member = Member.of("parallel" + i, i);
+                    member.setTeam(parallelTeam);
+                    return member;
+                }));
+    }
+
+    @AfterEach
+    void cleanup() {
+        bulkOperationService.delete(member.username.startsWith("parallel"), 100, 0);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                new JPAQueryFactory(em)
+                        .delete(team)
+                        .where(team.name.eq("parallelTeam"))
+                        .execute());
+    }
+
+    @Test
+    void applyPaginationParallel() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("parallelTeam");
+
+        Page<Member> page = testRepo.applyPaginationParallel(cond, PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(meterRegistry.get("querydsl.pagination").tag("mode", "parallel").timer().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void countsInCallerWhenThreadsAreBusy() {
+        CountDownLatch release = new CountDownLatch(1);
+        // 쓰레드(기본 2개)를 모두 잡아둔다
+        parallelCountExecutor.submit(() -> await(release));
+        parallelCountExecutor.submit(() -> await(release));
+        try {
+            ParallelCountExecutor.ParallelCount count = parallelCountExecutor.submit(() -> -1L);
+            // 대기열이 없으므로 시작하지 못하고 호출한 쪽에서 센다
+            assertThat(count.join(() -> 42L)).isEqualTo(42L);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Long await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1L;
+    }
+}
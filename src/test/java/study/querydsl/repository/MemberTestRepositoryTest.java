@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberTestRepository testRepo;
+
+    @BeforeEach
+    void setupData() {
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = Member.of("member1", 10, teamA);
+        Member member2 = Member.of("member2", 20, teamA);
+        Member member3 = Member.of("member3", 30, teamB);
+        Member member4 = Member.of("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+    }
+
+    @Test
+    void applyPaginationDeferred() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<Member> offsetResult = testRepo.applyPagination(cond, pageRequest);
+        Page<Member> deferredResult = testRepo.applyPaginationDeferred(cond, pageRequest);
+
+        // id 를 먼저 조회하는 방식도 정렬순서와 total 이 동일해야함
+        assertThat(deferredResult.getContent())
+                .extracting("username")
+                .containsExactly("member2", "member1");
+        assertThat(deferredResult.getContent()).isEqualTo(offsetResult.getContent());
+        assertThat(deferredResult.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void applyPaginationDeferredDto() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("teamB");
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = testRepo.applyPaginationDeferredDto(cond, pageRequest);
+
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member4");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void applySlice() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+
+        Slice<Member> lastSlice = testRepo.applySlice(cond, pageRequest);
+
+        // 4건 중 마지막 2건. count 없이 size + 1 건 조회로 다음 페이지가 없음을 안다
+        assertThat(lastSlice.getContent())
+                .extracting("username")
+                .containsExactly("member2", "member1");
+        assertThat(lastSlice.hasNext()).isFalse();
+        assertThat(testRepo.applySlice(cond, PageRequest.of(0, 3)).hasNext()).isTrue();
+    }
+}
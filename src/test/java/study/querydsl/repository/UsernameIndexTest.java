@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.CommittedFixture;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스는 커밋된 변경만 반영하므로 CommittedFixture 로 커밋한다.
+ */
+@SpringBootTest
+class UsernameIndexTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    UsernameIndex usernameIndex;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    CommittedFixture fixture;
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void setup() {
+        fixture = new CommittedFixture(transactionManager, em);
+        query = fixture.query();
+        fixture.commit(() -> {
+            Team idxTeam = Team.of("idxTeam");
+            em.persist(idxTeam);
+            em.persist(Member.of("idx-kimbob", 10, idxTeam));
+            em.persist(Member.of("idx-kim", 20, idxTeam));
+            em.persist(Member.of("IDX-KIM", 30, idxTeam));
+            em.persist(Member.of("my-idx-kim", 40, idxTeam));
+            em.persist(Member.of("idx-lee", 50));
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        fixture.delete(member.username.lower().contains("idx-"), team.name.eq("idxTeam"));
+        // 벌크 delete 는 인덱스를 무효화하므로 지운 회원은 바로 검색되지 않는다
+        assertThat(usernameIndex.search("idx-", 10)).isEmpty();
+    }
+
+    @Test
+    void ranked() {
+        assertThat(memberRepository.searchUsername("idx-kim", 10))
+                .extracting(MemberTeamDto::getUsername)
+                // 정확히 일치(대소문자 무시, id 순) > 앞부분 일치 > 중간 일치
+                .containsExactly("idx-kim", "IDX-KIM", "idx-kimbob", "my-idx-kim");
+
+        assertThat(memberRepository.searchUsername("KIM", 2)).hasSize(2);
+        assertThat(memberRepository.searchUsername("nobody", 10)).isEmpty();
+    }
+
+    @Test
+    void syncWithCommittedChanges() {
+        usernameIndex.search("idx-", 1); // 인덱스 로딩
+
+        fixture.commit(() -> {
+            Member lee = query.selectFrom(member).where(member.username.eq("idx-lee")).fetchOne();
+            lee.setUsername("idx-park");
+            em.remove(query.selectFrom(member).where(member.username.eq("idx-kimbob")).fetchOne());
+        });
+        // 롤백은 반영되지 않음
+        fixture.rollback(() -> {
+            em.persist(Member.of("idx-choi", 60));
+            em.flush();
+        });
+
+        assertThat(memberRepository.searchUsername("idx-", 10))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("idx-kim", "IDX-KIM", "idx-park", "my-idx-kim");
+    }
+
+    @Test
+    void bulkUpdateById() {
+        usernameIndex.search("idx-", 1); // 인덱스 로딩
+
+        // 엔티티 update 와 같은 모양의 SQL 이지만 엔티티 이벤트가 없는 벌크 연산
+        fixture.commit(() -> {
+            Long leeId = query.select(member.id).from(member).where(member.username.eq("idx-lee")).fetchOne();
+            query.update(member).set(member.username, "idx-park").where(member.id.eq(leeId)).execute();
+        });
+
+        assertThat(memberRepository.searchUsername("idx-park", 10))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("idx-park");
+    }
+
+    @Test
+    void reconcileFixesMissedChanges() {
+        usernameIndex.search("idx-", 1); // 인덱스 로딩
+
+        // 하이버네이트를 거치지 않은 변경은 이벤트도, invalidate 도 없다
+        jdbcTemplate.update("update member set username = 'idx-jung' where username = 'idx-lee'");
+        assertThat(memberRepository.searchUsername("idx-jung", 10)).isEmpty();
+
+        usernameIndex.reconcile();
+        assertThat(memberRepository.searchUsername("idx-jung", 10))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("idx-jung");
+    }
+
+    @Test
+    void searchConditionUsernameContains() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsernameContains("x-ki");
+        cond.setTeamName("idxTeam");
+        cond.setAgeGoe(15);
+        cond.setAgeLoe(35);
+
+        assertThat(memberRepository.search(cond))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("idx-kim", "IDX-KIM");
+    }
+}
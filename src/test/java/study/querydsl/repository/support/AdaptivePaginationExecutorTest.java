@@ -0,0 +1,130 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "querydsl.adaptive-pagination.count-cap=3")
+@Transactional
+class AdaptivePaginationExecutorTest {
+    static final String NAME = "MemberTestRepository.applyAdaptivePagination";
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberTestRepository testRepo;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    AdaptivePaginationExecutor executor;
+
+    @BeforeEach
+    void setupData() {
+        // 추정치는 이름(NAME), 조건 조합별이므로 다른 테스트의 결과가 남지 않도록
+        executor.clear();
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+        em.persist(Member.of("member3", 30, teamB));
+        em.persist(Member.of("member4", 40, teamB));
+        em.persist(Member.of("member5", 50, teamB));
+    }
+
+    @Test
+    void countFirstWhenUsuallyEmpty() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsername("nobody");
+
+        assertThat(strategyAfter(cond, PageRequest.of(0, 10))).isEqualTo("content_first");
+        // 지난번에 0 건이었으므로 count 를 먼저 보고 컨텐츠 쿼리를 생략
+        assertThat(strategyAfter(cond, PageRequest.of(0, 10))).isEqualTo("count_first");
+
+        Page<Member> page = testRepo.applyAdaptivePagination(cond, PageRequest.of(0, 10));
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+    }
+
+    @Test
+    void countFirstWhenOffsetBeyondEstimate() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("teamA");
+
+        assertThat(strategyAfter(cond, PageRequest.of(0, 10))).isEqualTo("content_first");
+        assertThat(strategyAfter(cond, PageRequest.of(0, 1))).isEqualTo("content_first");
+
+        Page<Member> beyond = testRepo.applyAdaptivePagination(cond, PageRequest.of(5, 10));
+        assertThat(beyond.getContent()).isEmpty();
+        assertThat(beyond.getTotalElements()).isEqualTo(2);
+        assertThat(strategyAfter(cond, PageRequest.of(5, 10))).isEqualTo("count_first");
+    }
+
+    @Test
+    void estimatedPerShape() {
+        MemberSearchCondition empty = new MemberSearchCondition();
+        empty.setUsername("nobody");
+        testRepo.applyAdaptivePagination(empty, PageRequest.of(0, 10));
+        assertThat(strategyAfter(empty, PageRequest.of(0, 10))).isEqualTo("count_first");
+
+        // 같은 메소드라도 조건 조합이 다르면 빈 검색의 추정치를 쓰지 않는다
+        MemberSearchCondition broad = new MemberSearchCondition();
+        broad.setTeamName("teamB");
+        assertThat(strategyAfter(broad, PageRequest.of(0, 10))).isEqualTo("content_first");
+    }
+
+    @Test
+    void cappedCountWhenLarge() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        assertThat(strategyAfter(cond, PageRequest.of(0, 2))).isEqualTo("content_first");
+        assertThat(strategyAfter(cond, PageRequest.of(0, 2))).isEqualTo("capped_count");
+
+        // cap(3) + 1 = "3 건 초과"
+        Page<Member> page = testRepo.applyAdaptivePagination(cond, PageRequest.of(0, 2));
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    /**
+     * 한 번 실행하고 이번에 선택된 방식
+     */
+    private String strategyAfter(MemberSearchCondition cond, PageRequest pageRequest) {
+        double[] before = counts();
+        testRepo.applyAdaptivePagination(cond, pageRequest);
+        double[] after = counts();
+        for (int i = 0; i < before.length; i++) {
+            if (after[i] > before[i]) {
+                return AdaptivePaginationExecutor.Strategy.values()[i].name().toLowerCase();
+            }
+        }
+        throw new IllegalStateException("strategy not recorded");
+    }
+
+    private double[] counts() {
+        AdaptivePaginationExecutor.Strategy[] strategies = AdaptivePaginationExecutor.Strategy.values();
+        double[] result = new double[strategies.length];
+        for (int i = 0; i < strategies.length; i++) {
+            Counter counter = meterRegistry.find("querydsl.pagination.strategy")
+                    .tags("name", NAME, "strategy", strategies[i].name().toLowerCase())
+                    .counter();
+            result[i] = counter == null ? 0 : counter.count();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueriesTest {
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void setupData() {
+        query = new JPAQueryFactory(em);
+        Team teamA = Team.of("teamA");
+        Team teamB = Team.of("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20, teamA));
+        em.persist(Member.of("member3", 30, teamB));
+        em.persist(Member.of("member4", 40));
+    }
+
+    @Test
+    void unusedLeftJoinIsRemoved() {
+        JPAQuery<Member> contentQuery = query.selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc());
+
+        JPAQuery<Long> countQuery = CountQueries.derive(query, contentQuery);
+
+        String jpql = countQuery.toString();
+        assertThat(jpql).doesNotContain("join", "order by");
+        assertThat(countQuery.fetchOne()).isEqualTo(3);
+    }
+
+    @Test
+    void referencedLeftJoinIsKept() {
+        JPAQuery<Member> contentQuery = query.selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        JPAQuery<Long> countQuery = CountQueries.derive(query, contentQuery);
+
+        assertThat(countQuery.toString()).contains("left join");
+        assertThat(countQuery.fetchOne()).isEqualTo(2);
+    }
+
+    @Test
+    void innerJoinIsKept() {
+        // inner join 은 팀이 없는 member4 를 걸러내므로 제거하면 안 된다
+        JPAQuery<Member> contentQuery = query.selectFrom(member)
+                .join(member.team, team);
+
+        JPAQuery<Long> countQuery = CountQueries.derive(query, contentQuery);
+
+        assertThat(countQuery.fetchOne()).isEqualTo(3);
+    }
+
+    @Test
+    void entityLeftJoinIsKept() {
+        // 연관관계 없는 엔티티 조인은 member 한 명에 팀 두 개가 붙어서 row 가 늘어난다
+        JPAQuery<Member> contentQuery = query.selectFrom(member)
+                .leftJoin(team).on(team.name.startsWith("team"));
+
+        JPAQuery<Long> countQuery = CountQueries.derive(query, contentQuery);
+
+        assertThat(countQuery.toString()).contains("left join");
+        assertThat(countQuery.fetchOne()).isEqualTo(contentQuery.fetch().size()).isEqualTo(8);
+    }
+
+    @Test
+    void keysWithCollectionJoinAreGrouped() {
+        // team.members join 으로 팀 하나가 회원 수만큼 나온다
+        JPAQuery<Team> contentQuery = query.selectFrom(team)
+                .join(team.members, member)
+                .where(member.age.goe(10))
+                .orderBy(team.name.desc());
+
+        JPAQuery<Long> keyQuery = CountQueries.deriveKeys(query, contentQuery, team.id);
+
+        assertThat(keyQuery.toString()).contains("group by", "max(team.name)");
+        assertThat(keyQuery.fetch()).hasSize(2);
+    }
+}
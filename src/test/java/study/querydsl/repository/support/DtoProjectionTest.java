@@ -0,0 +1,76 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class DtoProjectionTest {
+    static final DtoProjection<UserDto> USER = DtoProjection.constructor(UserDto.class,
+            member.username.as("name"), member.age);
+    static final DtoProjection<MemberTeamDto> MEMBER_TEAM = DtoProjection.of(MemberTeamDto.class,
+            args -> new MemberTeamDto((Long) args[0], (String) args[1], (Integer) args[2],
+                    (Long) args[3], (String) args[4]),
+            member.id, member.username, member.age, team.id, team.name);
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void setupData() {
+        query = new JPAQueryFactory(em);
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member2", 20));
+    }
+
+    @Test
+    void constructor() {
+        List<UserDto> result = query.select(USER)
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).containsExactly(new UserDto("member1", 10), new UserDto("member2", 20));
+    }
+
+    @Test
+    void lambda() {
+        List<MemberTeamDto> result = query.select(MEMBER_TEAM)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting(MemberTeamDto::getUsername, MemberTeamDto::getTeamName)
+                .containsExactly(
+                        tuple("member1", "teamA"),
+                        tuple("member2", null));
+    }
+
+    @Test
+    void constructorNotFound() {
+        assertThatThrownBy(() -> DtoProjection.constructor(UserDto.class, member.username, team.name))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋되므로 테스트 트랜잭션(@Transactional) 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberBulkOperationServiceTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberBulkWriter bulkWriter;
+    @Autowired
+    MemberBulkOperationService bulkOperationService;
+
+    @BeforeEach
+    void setupData() {
+        bulkWriter.write(IntStream.range(0, 10)
+                .mapToObj(i -> Member.of("chunk" + i, 10)));
+    }
+
+    @AfterEach
+    void cleanup() {
+        bulkOperationService.delete(member.username.startsWith("chunk"), 100, 0);
+    }
+
+    @Test
+    void updateInChunks() {
+        BulkOperationResult result = bulkOperationService.update(
+                member.username.startsWith("chunk"),
+                clause -> clause.set(member.age, member.age.add(1)),
+                3, 0);
+
+        assertThat(result.getTotalAffected()).isEqualTo(10);
+        assertThat(result.getChunks().size()).isGreaterThanOrEqualTo(4);
+
+        List<Integer> ages = new JPAQueryFactory(em)
+                .select(member.age)
+                .from(member)
+                .where(member.username.startsWith("chunk"))
+                .fetch();
+        assertThat(ages).hasSize(10).containsOnly(11);
+    }
+
+    @Test
+    void chunksOnlyMatchingIds() {
+        // 조건에 맞는 row 가 띄엄띄엄 있어도 빈 청크를 실행하지 않는다
+        BulkOperationResult result = bulkOperationService.update(
+                member.username.in("chunk0", "chunk9"),
+                clause -> clause.set(member.age, 20),
+                1, 0);
+
+        assertThat(result.getChunks()).hasSize(2)
+                .allSatisfy(chunk -> assertThat(chunk.getAffected()).isEqualTo(1));
+    }
+
+    @Test
+    void deleteInChunksWithRateLimit() {
+        // 초당 20 청크 -> 청크 사이 최소 50ms
+        BulkOperationResult result = bulkOperationService.delete(
+                member.username.startsWith("chunk").and(member.age.eq(10)), 5, 20);
+
+        assertThat(result.getTotalAffected()).isEqualTo(10);
+        assertThat(result.getElapsed().toMillis())
+                .isGreaterThanOrEqualTo(50L * (result.getChunks().size() - 1));
+    }
+}
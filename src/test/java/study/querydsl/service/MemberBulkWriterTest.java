@@ -0,0 +1,91 @@
+package study.querydsl.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.CommittedFixture;
+
+import javax.persistence.EntityManager;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 적재는 별도 트랜잭션(REQUIRES_NEW)으로 커밋되므로 CommittedFixture 로 정리한다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MemberBulkWriterTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberBulkWriter bulkWriter;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    CommittedFixture fixture;
+
+    @BeforeEach
+    void setup() {
+        fixture = new CommittedFixture(transactionManager, em);
+    }
+
+    @AfterEach
+    void cleanup() {
+        fixture.delete(member.username.startsWith("bulk"), team.name.startsWith("bulkTeam"));
+    }
+
+    @Test
+    void write() {
+        Team teamA = Team.of("bulkTeamA");
+        Team teamB = Team.of("bulkTeamB");
+        bulkWriter.write(Stream.of(teamA, teamB));
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BulkWriteResult result = bulkWriter.write(IntStream.range(0, 250)
+                .mapToObj(i -> {
+                    Member m = Member.of("bulk" + i, i);
+                    m.setTeam(i % 2 == 0 ? teamA : teamB);
+                    return m;
+                }));
+
+        assertThat(result.getRows()).isEqualTo(250);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(250);
+        // insert 는 batch_size(100) 마다 한 번씩 prepare (JDBC batch 가 아니면 250번)
+        // 나머지는 시퀀스 조회 (block_size 50 마다 한 번)
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + 250 / 50 + 1);
+        // 참조만 걸었으므로 팀 컬렉션은 그대로
+        assertThat(teamA.getMembers()).isEmpty();
+
+        Long teamACount = fixture.query()
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("bulkTeamA"))
+                .fetchOne();
+        assertThat(teamACount).isEqualTo(125);
+    }
+
+    @Test
+    void keepsCallerPersistenceContext() {
+        fixture.commit(() -> {
+            Team teamC = Team.of("bulkTeamC");
+            em.persist(teamC);
+
+            bulkWriter.write(Stream.of(Member.of("bulk-c", 10)));
+
+            // 별도 트랜잭션에서 clear 하므로 호출한 쪽 엔티티는 영속 상태 그대로
+            assertThat(em.contains(teamC)).isTrue();
+        });
+    }
+}
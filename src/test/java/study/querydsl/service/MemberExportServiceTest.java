@@ -0,0 +1,62 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberExportService exportService;
+
+    @BeforeEach
+    void setupData() {
+        Team teamA = Team.of("teamA");
+        em.persist(teamA);
+
+        em.persist(Member.of("member1", 10, teamA));
+        em.persist(Member.of("member,2", 20, teamA));
+        em.persist(Member.of("member3", 30));
+    }
+
+    @Test
+    void exportJsonLines() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("teamA");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(cond, MemberExportService.Format.JSONL, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"username\":\"member1\"", "\"teamName\":\"teamA\"");
+    }
+
+    @Test
+    void exportCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(new MemberSearchCondition(), MemberExportService.Format.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("memberId,username,age,teamId,teamName\n");
+        assertThat(csv).contains("\"member,2\",20,");
+        // 팀이 없는 회원은 빈 컬럼
+        assertThat(csv).contains(",member3,30,,\n");
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchExecutorTest {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    MemberSearchExecutor executor = new MemberSearchExecutor(meterRegistry, 1, 1);
+
+    @AfterEach
+    void shutdown() {
+        executor.destroy();
+    }
+
+    @Test
+    void runOnSearchThreadAndRejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            await(release);
+            return Thread.currentThread().getName();
+        });
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        // 쓰레드 1개, 대기열 1개가 모두 찼으므로 요청 쓰레드에서 바로 거절
+        assertThatThrownBy(() -> executor.submit(() -> "rejected"))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(running.get()).startsWith("member-search-");
+        assertThat(queued.get()).isEqualTo("queued");
+        assertThat(meterRegistry.find("executor.completed").tag("name", "member.search").functionCounter())
+                .isNotNull();
+    }
+
+    @Test
+    void cancelledSearchIsNotRun() throws Exception {
+        executor.destroy();
+        // 취소된 검색이 대기열에서 빠지기 전에 다음 검색을 넣을 수 있도록 대기열 2개
+        executor = new MemberSearchExecutor(meterRegistry, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            await(release);
+            return "running";
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> queued = executor.submit(() -> {
+            ran.set(true);
+            return "queued";
+        });
+
+        // 요청이 타임아웃된 경우처럼 대기 중에 취소
+        queued.cancel(true);
+        release.countDown();
+        assertThat(running.get()).isEqualTo("running");
+
+        // 취소된 검색이 빠진 뒤에 제출한 검색이 끝났으면 취소된 검색은 건너뛴 것
+        assertThat(executor.submit(() -> "next").get()).isEqualTo("next");
+        assertThat(ran).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
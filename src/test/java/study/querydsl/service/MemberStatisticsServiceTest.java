@@ -0,0 +1,130 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.dto.AgeStats;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.CommittedFixture;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 통계는 커밋된 변경만 반영하므로 CommittedFixture 로 커밋한다.
+ */
+@SpringBootTest
+class MemberStatisticsServiceTest {
+    @Autowired
+    MemberStatisticsService statisticsService;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    CommittedFixture fixture;
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void setup() {
+        fixture = new CommittedFixture(transactionManager, em);
+        query = fixture.query();
+        // cold start : DB 에서 집계
+        statisticsService.getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        fixture.delete(member.username.startsWith("stats"), team.name.startsWith("stats"));
+        // 벌크 delete 는 통계를 무효화하므로 다음 조회는 DB 에서 다시 집계한다
+        assertThat(statisticsService.getStatistics().getByTeam().keySet())
+                .noneMatch(name -> name.startsWith("stats"));
+    }
+
+    @Test
+    void incrementalUpdate() {
+        fixture.commit(() -> {
+            Team statsA = Team.of("statsA");
+            em.persist(statsA);
+            em.persist(Member.of("stats1", 11, statsA));
+            em.persist(Member.of("stats2", 15, statsA));
+            em.persist(Member.of("stats3", 19, statsA));
+        });
+
+        AgeStats statsA = statisticsService.getStatistics().getByTeam().get("statsA");
+        assertThat(statsA.getCount()).isEqualTo(3);
+        assertThat(statsA.getMin()).isEqualTo(11);
+        assertThat(statsA.getMax()).isEqualTo(19);
+        assertThat(statsA.getAvg()).isEqualTo(15);
+
+        // changeTeam, 삭제
+        fixture.commit(() -> {
+            Team statsB = Team.of("statsB");
+            em.persist(statsB);
+            query.selectFrom(member).where(member.username.eq("stats3")).fetchOne().changeTeam(statsB);
+            em.remove(query.selectFrom(member).where(member.username.eq("stats1")).fetchOne());
+        });
+
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsA"))
+                .extracting(AgeStats::getCount, AgeStats::getMin, AgeStats::getMax)
+                .containsExactly(1L, 15, 15);
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsB").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rollbackIsIgnored() {
+        fixture.rollback(() -> {
+            Team statsC = Team.of("statsC");
+            em.persist(statsC);
+            em.persist(Member.of("stats1", 30, statsC));
+            em.flush();
+        });
+
+        assertThat(statisticsService.getStatistics().getByTeam()).doesNotContainKey("statsC");
+    }
+
+    @Test
+    void bulkUpdateRebuilds() {
+        fixture.commit(() -> {
+            Team statsD = Team.of("statsD");
+            em.persist(statsD);
+            em.persist(Member.of("stats1", 20, statsD));
+        });
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsD").getMax()).isEqualTo(20);
+
+        fixture.commit(() -> query.update(member)
+                .set(member.age, member.age.add(5))
+                .where(member.username.eq("stats1"))
+                .execute());
+
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsD").getMax()).isEqualTo(25);
+    }
+
+    @Test
+    void reconcileFixesMissedChanges() {
+        fixture.commit(() -> {
+            Team statsE = Team.of("statsE");
+            em.persist(statsE);
+            em.persist(Member.of("stats1", 20, statsE));
+        });
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsE").getMax()).isEqualTo(20);
+
+        // 하이버네이트를 거치지 않은 변경은 이벤트도, invalidate 도 없다
+        jdbcTemplate.update("update member set age = 30 where username = 'stats1'");
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsE").getMax()).isEqualTo(20);
+
+        statisticsService.reconcile();
+        assertThat(statisticsService.getStatistics().getByTeam().get("statsE").getMax()).isEqualTo(30);
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamSummary;
+import study.querydsl.support.CommittedFixture;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * TeamSummary 는 커밋하는 트랜잭션 안에서 갱신되므로 CommittedFixture 로 커밋한다.
+ */
+@SpringBootTest
+class TeamSummaryServiceTest {
+    @Autowired
+    TeamSummaryService teamSummaryService;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    CommittedFixture fixture;
+    JPAQueryFactory query;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void setup() {
+        fixture = new CommittedFixture(transactionManager, em);
+        query = fixture.query();
+        fixture.commit(() -> {
+            Team teamA = Team.of("summaryA");
+            Team teamB = Team.of("summaryB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(Member.of("summary1", 10, teamA));
+            em.persist(Member.of("summary2", 20, teamA));
+            em.persist(Member.of("summary3", 30, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        fixture.delete(member.username.startsWith("summary"), team.name.startsWith("summary"));
+        // 벌크 delete 는 표시만 해두고 (주기 작업이 먼저 맞췄을 수도 있다) 다시 맞추면 지운 팀의 요약도 없어진다
+        teamSummaryService.reconcileIfDirty();
+        assertThat(teamSummaryService.findByTeamId(teamAId)).isEmpty();
+        assertThat(teamSummaryService.findByTeamId(teamBId)).isEmpty();
+    }
+
+    @Test
+    void maintainedOnCommit() {
+        assertSummary(teamAId, 2, 15);
+        assertSummary(teamBId, 1, 30);
+
+        // changeTeam
+        fixture.commit(() -> {
+            Member member1 = query.selectFrom(member).where(member.username.eq("summary1")).fetchOne();
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+        assertSummary(teamAId, 1, 20);
+        assertSummary(teamBId, 2, 20);
+
+        // 롤백되면 반영되지 않음
+        fixture.rollback(() -> {
+            em.persist(Member.of("summary4", 40, em.find(Team.class, teamAId)));
+            em.flush();
+        });
+        assertSummary(teamAId, 1, 20);
+    }
+
+    @Test
+    void maintainedWithoutExplicitFlush() {
+        // 커밋하면서 하는 flush 에서만 insert 되는 변경
+        Long teamCId = fixture.commitAndGet(() -> {
+            Team teamC = Team.of("summaryC");
+            em.persist(teamC);
+            em.persist(Member.of("summary5", 50, teamC));
+            em.persist(Member.of("summary6", 60, em.find(Team.class, teamAId)));
+            return teamC.getId();
+        });
+
+        assertSummary(teamCId, 1, 50);
+        assertSummary(teamAId, 3, 30);
+        assertThat(teamSummaryService.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcileOnceAfterBulkUpdates() {
+        // 청크마다 커밋하는 벌크 연산처럼 여러번 커밋
+        for (int i = 0; i < 3; i++) {
+            fixture.commit(() -> query.update(member)
+                    .set(member.age, member.age.add(10))
+                    .where(member.username.startsWith("summary"))
+                    .execute());
+        }
+
+        // 커밋마다 다시 집계하지 않고 표시만 해둔다 (주기 작업이 먼저 실행했을 수도 있다)
+        teamSummaryService.reconcileIfDirty();
+        assertSummary(teamAId, 2, 45);
+        assertSummary(teamBId, 1, 60);
+        assertThat(teamSummaryService.reconcileIfDirty()).isZero();
+        assertThat(teamSummaryService.reconcile()).isZero();
+    }
+
+    private void assertSummary(Long teamId, long memberCount, double averageAge) {
+        TeamSummary summary = teamSummaryService.findByTeamId(teamId).orElseThrow();
+        assertThat(summary.getMemberCount()).isEqualTo(memberCount);
+        assertThat(summary.getAverageAge()).isEqualTo(averageAge);
+    }
+}
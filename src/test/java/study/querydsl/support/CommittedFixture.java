@@ -0,0 +1,59 @@
+package study.querydsl.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 시점에 반영되는 기능(리스너, 메모리 인덱스, 집계)을 테스트할 때
+ * 테스트 트랜잭션(@Transactional) 대신 사용한다. 트랜잭션마다 커밋되므로 만든 데이터는 delete 로 직접 지운다.
+ * delete 는 벌크 연산이므로 리스너가 있는 쪽에서는 그 결과(무효화, 재집계)도 확인하자.
+ */
+public class CommittedFixture {
+    private final TransactionTemplate tx;
+    private final JPAQueryFactory query;
+
+    public CommittedFixture(PlatformTransactionManager transactionManager, EntityManager em) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.query = new JPAQueryFactory(em);
+    }
+
+    public JPAQueryFactory query() {
+        return query;
+    }
+
+    public void commit(Runnable work) {
+        tx.executeWithoutResult(status -> work.run());
+    }
+
+    public <T> T commitAndGet(Supplier<T> work) {
+        return tx.execute(status -> work.get());
+    }
+
+    /**
+     * work 를 실행하고 롤백한다. DB 에 나갔다가 롤백되는 경우를 보려면 work 에서 flush 하자.
+     */
+    public void rollback(Runnable work) {
+        tx.executeWithoutResult(status -> {
+            work.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    /**
+     * 한 트랜잭션에서 회원, 팀 순서로 벌크 delete 후 커밋
+     */
+    public void delete(Predicate members, Predicate teams) {
+        commit(() -> {
+            query.delete(member).where(members).execute();
+            query.delete(team).where(teams).execute();
+        });
+    }
+}